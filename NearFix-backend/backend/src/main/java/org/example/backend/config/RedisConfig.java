@@ -3,10 +3,17 @@ package org.example.backend.config;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.util.List;
 
 @Configuration
 @EnableCaching
@@ -23,4 +30,50 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    // Pub/sub listeners, e.g. invalidations of the local garage cache sent by other instances
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    // Atomic like/unlike shared by post and comment likes, sent by SHA after the first call
+    @Bean
+    @SuppressWarnings("rawtypes")
+    public RedisScript<List> toggleLikeScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/toggle_like.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    // Compare-and-set of like counts for LikeCountReconciler, shared by post and comment likes
+    @Bean
+    @SuppressWarnings("rawtypes")
+    public RedisScript<List> syncLikeCountsScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/sync_like_counts.lua")));
+        script.setResultType(List.class);
+        return script;
+    }
+
+    // Rescores posts in the hot feed ranking, see HotPostRanking
+    @Bean
+    public RedisScript<Long> hotScoreScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/hot_score.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    // Cache-aside write that loses to a concurrent eviction, see GarageResponseCache
+    @Bean
+    public RedisScript<Long> cacheSetIfVersionScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/cache_set_if_version.lua")));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
@@ -4,10 +4,14 @@ import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.Executors;
+
 @Configuration
 public class S3Config {
 
@@ -28,4 +32,18 @@ public class S3Config {
                 .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
                 .build();
     }
-} 
\ No newline at end of file
+
+    // Files above the threshold are sent as parallel multipart uploads on a fixed number of threads
+    @Bean(destroyMethod = "shutdownNow")
+    public TransferManager transferManager(AmazonS3 s3Client,
+                                           @Value("${uploads.transfer-threads:4}") int transferThreads,
+                                           @Value("${uploads.multipart-threshold-mb:16}") long multipartThresholdMb,
+                                           @Value("${uploads.part-size-mb:8}") long partSizeMb) {
+        return TransferManagerBuilder.standard()
+                .withS3Client(s3Client)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(transferThreads))
+                .withMultipartUploadThreshold(multipartThresholdMb * 1024 * 1024)
+                .withMinimumUploadPartSize(partSizeMb * 1024 * 1024)
+                .build();
+    }
+}
\ No newline at end of file
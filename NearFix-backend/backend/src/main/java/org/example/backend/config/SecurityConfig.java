@@ -35,7 +35,7 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> {})
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll()
+                .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh", "/api/auth/password-setup").permitAll()
                 .requestMatchers("/api/posts/**").permitAll()
                 .requestMatchers("/api/posts/*/comments").permitAll()
                 .requestMatchers("/api/posts/*/comments/**").permitAll()
@@ -3,6 +3,7 @@ package org.example.backend.controller;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.auth.AuthResponse;
 import org.example.backend.dto.auth.LoginRequest;
+import org.example.backend.dto.auth.PasswordSetupRequest;
 import org.example.backend.dto.auth.RefreshTokenRequest;
 import org.example.backend.dto.auth.RegisterRequest;
 import org.example.backend.service.AuthService;
@@ -39,12 +40,17 @@ public class AuthController {
         return ResponseEntity.ok(authService.refreshToken(request));
     }
 
+    @PostMapping("/password-setup")
+    public ResponseEntity<Void> setupPassword(@RequestBody PasswordSetupRequest request) {
+        authService.setupPassword(request);
+        return ResponseEntity.ok().build();
+    }
+
     @PutMapping(value = "/profile/photo", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, String>> updateProfilePhoto(
             @RequestParam("photo") MultipartFile photo,
             @RequestAttribute("userEmail") String userEmail) throws IOException {
-        String newPhotoUrl = authService.updateProfilePhoto(photo, userEmail);
-        return ResponseEntity.ok(Map.of("photoUrl", newPhotoUrl));
+        return ResponseEntity.ok(authService.updateProfilePhoto(photo, userEmail));
     }
 
     @DeleteMapping("/profile/photo")
@@ -8,7 +8,7 @@ import org.example.backend.dto.commentlike.CommentLikeRequest;
 import org.example.backend.dto.commentlike.CommentLikeResponse;
 import org.example.backend.service.CommentService;
 import org.example.backend.service.RedisCommentLikeService;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -34,7 +34,7 @@ public class CommentController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<CommentResponse>> getCommentsForPost(
+    public ResponseEntity<Slice<CommentResponse>> getCommentsForPost(
             @PathVariable UUID postId,
             CommentFilterRequest filterRequest,
             @AuthenticationPrincipal UserDetails userDetails) {
@@ -81,7 +81,7 @@ public class CommentController {
         commentService.processBatchLikes(List.of(likeRequest), authentication.getName());
         
         // Return the updated like status
-        Long likeCount = redisCommentLikeService.getLikeCount(commentId);
+        Long likeCount = commentService.getLikeCount(commentId);
         boolean hasLiked = redisCommentLikeService.hasUserLiked(commentId, authentication.getName());
         
         CommentLikeResponse response = CommentLikeResponse.builder()
@@ -98,7 +98,7 @@ public class CommentController {
             @PathVariable UUID postId,
             @PathVariable UUID commentId,
             Authentication authentication) {
-        Long likeCount = redisCommentLikeService.getLikeCount(commentId);
+        Long likeCount = commentService.getLikeCount(commentId);
         boolean hasLiked = redisCommentLikeService.hasUserLiked(commentId, authentication.getName());
         
         CommentLikeResponse response = CommentLikeResponse.builder()
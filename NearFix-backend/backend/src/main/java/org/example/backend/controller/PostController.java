@@ -8,7 +8,7 @@ import org.example.backend.dto.post.PostRequest;
 import org.example.backend.dto.post.PostResponse;
 import org.example.backend.service.PostService;
 import org.example.backend.service.RedisLikeService;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -31,8 +31,11 @@ public class PostController {
     }
 
     @GetMapping
-    public ResponseEntity<Page<PostResponse>> getAllPosts(PostFilterRequest filterRequest) {
-        return ResponseEntity.ok(postService.getAllPosts(filterRequest));
+    public ResponseEntity<Slice<PostResponse>> getAllPosts(
+            PostFilterRequest filterRequest,
+            Authentication authentication) {
+        String userEmail = authentication != null ? authentication.getName() : null;
+        return ResponseEntity.ok(postService.getAllPosts(filterRequest, userEmail));
     }
 
     @GetMapping("/{postId}")
@@ -76,7 +79,7 @@ public class PostController {
         postService.processBatchLikes(List.of(likeRequest), authentication.getName());
         
         // Return the updated like status
-        Long likeCount = redisLikeService.getLikeCount(postId);
+        Long likeCount = postService.getLikeCount(postId);
         boolean hasLiked = redisLikeService.hasUserLiked(postId, authentication.getName());
         
         LikeResponse response = LikeResponse.builder()
@@ -92,7 +95,7 @@ public class PostController {
     public ResponseEntity<LikeResponse> getLikeStatus(
             @PathVariable UUID postId,
             Authentication authentication) {
-        Long likeCount = redisLikeService.getLikeCount(postId);
+        Long likeCount = postService.getLikeCount(postId);
         boolean hasLiked = redisLikeService.hasUserLiked(postId, authentication.getName());
         
         LikeResponse response = LikeResponse.builder()
@@ -0,0 +1,9 @@
+package org.example.backend.dto.auth;
+
+import lombok.Data;
+
+@Data
+public class PasswordSetupRequest {
+    private String token;
+    private String password;
+}
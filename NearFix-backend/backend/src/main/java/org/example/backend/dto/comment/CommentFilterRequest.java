@@ -9,4 +9,6 @@ public class CommentFilterRequest {
     private String sortDirection = "DESC";
     private Integer page = 0;
     private Integer size = 10;
+    private boolean keyset; // slice by cursor instead of page, without a total count; sorts by creationDate or upvotes
+    private String cursor; // nextCursor of the previous slice, implies keyset
 } 
\ No newline at end of file
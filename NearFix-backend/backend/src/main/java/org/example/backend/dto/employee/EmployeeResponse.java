@@ -3,6 +3,7 @@ package org.example.backend.dto.employee;
 import lombok.Builder;
 import lombok.Data;
 import org.example.backend.dto.user.AddressResponse;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.Role;
 
 import java.util.UUID;
@@ -16,6 +17,8 @@ public class EmployeeResponse {
     private String email;
     private String phoneNumber;
     private String profilePhotoUrl;
+    // PENDING while the latest upload is on its way to S3, FAILED if it never got there; null without one
+    private FileUploadStatus profilePhotoUploadStatus;
     private Role role;
     private AddressResponse address;
     private UUID garageId;
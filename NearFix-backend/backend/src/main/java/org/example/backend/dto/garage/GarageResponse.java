@@ -1,15 +1,21 @@
 package org.example.backend.dto.garage;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.example.backend.dto.user.AddressResponse;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.GarageStatus;
 
 import java.util.UUID;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class GarageResponse {
     private UUID garageId;
     private String name;
@@ -20,7 +26,12 @@ public class GarageResponse {
     private String ownerProfilePhotoUrl;
     private AddressResponse address;
     private String photoUrl;
+    // Thumbnail URL by size in px (longest side), only for the sizes stored; null when the photo has none
+    private Map<Integer, String> photoThumbnailUrls;
+    // PENDING while the latest upload is on its way to S3, FAILED if it never got there; null without one
+    private FileUploadStatus photoUploadStatus;
     private String documentUrl;
+    private FileUploadStatus documentUploadStatus;
     private GarageStatus status;
     private String rejectionReason;
     // schedule: List<GarageScheduleResponse> where dayOfWeek is 0 = Monday, 6 = Sunday
@@ -1,12 +1,16 @@
 package org.example.backend.dto.garage;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalTime;
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class GarageScheduleResponse {
     private UUID scheduleId;
     // dayOfWeek: 0 = Monday, 6 = Sunday
@@ -2,12 +2,16 @@ package org.example.backend.dto.garage;
 
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 public class GarageSearchRequest {
     private double latitude;
     private double longitude;
     private String area; // ex: "MECHANIC_ENGINE"
     private boolean openNow;
+    private LocalDateTime openAt; // optional, takes precedence over openNow
     private int page = 0;
     private int size = 10;
+    private String cursor; // nextCursor of the previous page, replaces page; only valid for the same search
 } 
\ No newline at end of file
@@ -0,0 +1,15 @@
+package org.example.backend.dto.like;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// changed is false when the user already liked (or had not liked) the item
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LikeToggleResult {
+    private long likeCount;
+    private boolean liked;
+    private boolean changed;
+}
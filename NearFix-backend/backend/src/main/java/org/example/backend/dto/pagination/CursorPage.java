@@ -0,0 +1,30 @@
+package org.example.backend.dto.pagination;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page that also carries an opaque cursor for fetching the next page.
+ * nextCursor is null when there are no more results. When totalApproximate is set,
+ * the total is an upper bound rather than an exact count.
+ */
+public class CursorPage<T> extends PageImpl<T> {
+    private final String nextCursor;
+    private final boolean totalApproximate;
+
+    public CursorPage(List<T> content, Pageable pageable, long total, boolean totalApproximate, String nextCursor) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
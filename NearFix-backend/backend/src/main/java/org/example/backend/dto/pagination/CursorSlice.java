@@ -0,0 +1,63 @@
+package org.example.backend.dto.pagination;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Slice of a keyset paginated feed. Unlike {@link CursorPage} it has no total,
+ * so no count query is needed. nextCursor is null on the last slice.
+ */
+public class CursorSlice<T> extends SliceImpl<T> {
+    private final String nextCursor;
+
+    /**
+     * Sort key value and id of the last row of a slice; the next slice starts after it.
+     */
+    public record Position(Object value, UUID id) {
+        public ScrollPosition toScrollPosition(String sortKey, String idProperty) {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put(sortKey, value);
+            keys.put(idProperty, id);
+            return ScrollPosition.forward(keys);
+        }
+    }
+
+    public CursorSlice(List<T> content, Pageable pageable, boolean hasNext, String nextCursor) {
+        super(content, pageable, hasNext);
+        this.nextCursor = nextCursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    // "sortKey:value:id", base64url encoded so it can be passed back as a query parameter
+    public static String encodeCursor(String sortKey, Object value, UUID id) {
+        String raw = sortKey + ":" + value + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a missing cursor, that is the first slice. Throws IllegalArgumentException
+     * when the cursor is malformed or was issued for another sort key.
+     */
+    public static Position decodeCursor(String cursor, String sortKey, Function<String, ?> parseValue) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3 || !parts[0].equals(sortKey)) {
+            throw new IllegalArgumentException("cursor belongs to another sort");
+        }
+        return new Position(parseValue.apply(parts[1]), UUID.fromString(parts[2]));
+    }
+}
@@ -5,8 +5,10 @@ import lombok.Data;
 @Data
 public class PostFilterRequest {
     private String searchTerm;
-    private String sortBy = "creationDate";
+    private String sortBy = "creationDate"; // also "relevance" with a searchTerm, or "hot"
     private String sortDirection = "DESC";
     private Integer page = 0;
     private Integer size = 10;
+    private boolean keyset; // slice by cursor instead of page, without a total count; sorts by creationDate or upvotes
+    private String cursor; // nextCursor of the previous slice, implies keyset
 } 
\ No newline at end of file
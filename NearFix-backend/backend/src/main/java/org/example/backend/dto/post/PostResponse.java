@@ -18,4 +18,5 @@ public class PostResponse {
     private UUID authorId;
     private String authorEmail;
     private Boolean isEdited;
+    private Boolean hasLiked;
 } 
\ No newline at end of file
@@ -0,0 +1,18 @@
+package org.example.backend.dto.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Where an uploaded file was stored, so it can be deleted or linked without probing the bucket.
+// uploadId is the FileUpload that sends it to S3; null for objects that were already there.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoredFile {
+    private String key;
+    private String contentType;
+    private UUID uploadId;
+}
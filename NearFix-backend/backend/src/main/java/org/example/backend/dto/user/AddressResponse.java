@@ -1,12 +1,16 @@
 package org.example.backend.dto.user;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class AddressResponse {
     // AddressResponse include: addressId, country, city, street, number, zipCode, latitude, longitude
     private UUID addressId;
@@ -2,8 +2,10 @@ package org.example.backend.dto.user;
 
 import lombok.Builder;
 import lombok.Data;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.Role;
 
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -15,6 +17,10 @@ public class UserResponse {
     private String email;
     private String phoneNumber;
     private String profilePhotoUrl;
+    // Thumbnail URL by size in px (longest side), only for the sizes stored; null when the photo has none
+    private Map<Integer, String> profilePhotoThumbnailUrls;
+    // PENDING while the latest upload is on its way to S3, FAILED if it never got there; null without one
+    private FileUploadStatus profilePhotoUploadStatus;
     private Role role;
     private AddressResponse address;
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package org.example.backend.dto.vehicle;
 
 import lombok.Builder;
 import lombok.Data;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.FuelType;
 
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -20,4 +22,8 @@ public class VehicleResponse {
     private Integer mileage;
     private UUID userId;
     private String photoUrl;
+    // Thumbnail URL by size in px (longest side), only for the sizes stored; null when the photo has none
+    private Map<Integer, String> photoThumbnailUrls;
+    // PENDING while the latest upload is on its way to S3, FAILED if it never got there; null without one
+    private FileUploadStatus photoUploadStatus;
 } 
\ No newline at end of file
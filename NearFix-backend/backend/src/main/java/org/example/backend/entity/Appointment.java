@@ -10,7 +10,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "Appointments")
+@Table(name = "Appointments", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "selected_date", "daily_slot"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,6 +44,10 @@ public class Appointment {
     @Column(name = "selected_date", nullable = false)
     private LocalDate selectedDate;
 
+    // Position in the employee's day (1, 2, ...); the unique key stops two bookings taking the same one
+    @Column(name = "daily_slot")
+    private Integer dailySlot;
+
     @OneToMany(mappedBy = "appointment")
     private List<AppointmentOperation> appointmentOperations;
 
@@ -9,7 +9,10 @@ import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
-@Table(name = "Comments")
+@Table(name = "Comments", indexes = {
+        @Index(name = "idx_comments_post_creation_date_id", columnList = "post_id, creation_date, comment_id"),
+        @Index(name = "idx_comments_post_upvotes_id", columnList = "post_id, upvotes, comment_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,11 +22,11 @@ public class Comment {
     @Column(name = "comment_id")
     private UUID commentId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = false)
     private Post post;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -0,0 +1,58 @@
+package org.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "File_Uploads", indexes = {
+        @Index(name = "idx_file_uploads_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileUpload {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "upload_id")
+    private UUID uploadId;
+
+    @Column(name = "bucket", nullable = false, length = 100)
+    private String bucket;
+
+    @Column(name = "object_key", nullable = false, length = 500)
+    private String objectKey;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size", nullable = false)
+    private Long size;
+
+    @Column(name = "spool_path", nullable = false, length = 1000)
+    private String spoolPath;
+
+    @Column(name = "thumbnails")
+    private Boolean thumbnails;
+
+    // Thumbnail sizes actually stored, e.g. "64,256,1024"; empty when there are none
+    @Column(name = "thumbnail_sizes", length = 100)
+    private String thumbnailSizes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private FileUploadStatus status;
+
+    @Column(name = "failure_reason", length = 1000)
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
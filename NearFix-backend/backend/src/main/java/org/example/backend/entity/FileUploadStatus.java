@@ -0,0 +1,7 @@
+package org.example.backend.entity;
+
+public enum FileUploadStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
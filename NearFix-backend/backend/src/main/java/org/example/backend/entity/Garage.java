@@ -31,12 +31,42 @@ public class Garage {
     @Column(name = "name", nullable = false, length = 50)
     private String name;
 
+    // Presigned URL saved before object keys were stored; only read by StoredObjectKeyBackfill
     @Column(name = "photo_url", nullable = true, length = 1000)
     private String photoUrl;
 
+    @Column(name = "photo_key", nullable = true, length = 500)
+    private String photoKey;
+
+    @Column(name = "photo_content_type", nullable = true, length = 100)
+    private String photoContentType;
+
+    // Thumbnail sizes stored for the photo, see FileUpload; null until known
+    @Column(name = "photo_thumbnail_sizes", nullable = true, length = 100)
+    private String photoThumbnailSizes;
+
+    // Latest upload of the photo and how it went, kept current by FileUploadOwners
+    @Column(name = "photo_upload_id", nullable = true)
+    private UUID photoUploadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "photo_upload_status", nullable = true, length = 20)
+    private FileUploadStatus photoUploadStatus;
+
+    // Presigned URL saved before object keys were stored; only read by StoredObjectKeyBackfill
     @Column(name = "document_url", nullable = true, length = 1000)
     private String documentUrl;
 
+    @Column(name = "document_key", nullable = true, length = 500)
+    private String documentKey;
+
+    @Column(name = "document_upload_id", nullable = true)
+    private UUID documentUploadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "document_upload_status", nullable = true, length = 20)
+    private FileUploadStatus documentUploadStatus;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private GarageStatus status = GarageStatus.PENDING;
@@ -0,0 +1,6 @@
+package org.example.backend.entity;
+
+public enum OutboxEmailStatus {
+    PENDING,
+    DEAD
+}
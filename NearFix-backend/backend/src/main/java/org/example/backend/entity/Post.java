@@ -10,7 +10,10 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "Posts")
+@Table(name = "Posts", indexes = {
+        @Index(name = "idx_posts_creation_date_id", columnList = "creation_date, post_id"),
+        @Index(name = "idx_posts_upvotes_id", columnList = "upvotes, post_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +23,7 @@ public class Post {
     @Column(name = "post_id")
     private UUID postId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
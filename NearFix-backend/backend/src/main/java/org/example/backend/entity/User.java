@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,12 +36,38 @@ public class User {
     @Column(name = "password", nullable = false, length = 60)
     private String password;
 
+    // SHA-256 of the pending password setup token, see PasswordSetupTokens
+    @Column(name = "password_setup_token_hash", unique = true, length = 64)
+    private String passwordSetupTokenHash;
+
+    @Column(name = "password_setup_expires_at")
+    private LocalDateTime passwordSetupExpiresAt;
+
     @Column(name = "phone_number", nullable = false, length = 50)
     private String phoneNumber;
 
+    // Presigned URL saved before object keys were stored; only read by StoredObjectKeyBackfill
     @Column(name = "profile_photo_url", length = 1000)
     private String profilePhotoUrl;
 
+    @Column(name = "profile_photo_key", length = 500)
+    private String profilePhotoKey;
+
+    @Column(name = "profile_photo_content_type", length = 100)
+    private String profilePhotoContentType;
+
+    // Thumbnail sizes stored for the photo, see FileUpload; null until known
+    @Column(name = "profile_photo_thumbnail_sizes", length = 100)
+    private String profilePhotoThumbnailSizes;
+
+    // Latest upload of the profile photo and how it went, kept current by FileUploadOwners
+    @Column(name = "profile_photo_upload_id")
+    private UUID profilePhotoUploadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "profile_photo_upload_status", length = 20)
+    private FileUploadStatus profilePhotoUploadStatus;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false, length = 50)
     private Role role;
@@ -48,9 +48,28 @@ public class Vehicle {
     @Column(name = "mileage", nullable = false)
     private Integer mileage;
 
+    // Presigned URL saved before object keys were stored; only read by StoredObjectKeyBackfill
     @Column(name = "photo_url", length = 1000)
     private String photoUrl;
 
+    @Column(name = "photo_key", length = 500)
+    private String photoKey;
+
+    @Column(name = "photo_content_type", length = 100)
+    private String photoContentType;
+
+    // Thumbnail sizes stored for the photo, see FileUpload; null until known
+    @Column(name = "photo_thumbnail_sizes", length = 100)
+    private String photoThumbnailSizes;
+
+    // Latest upload of the photo and how it went, kept current by FileUploadOwners
+    @Column(name = "photo_upload_id")
+    private UUID photoUploadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "photo_upload_status", length = 20)
+    private FileUploadStatus photoUploadStatus;
+
     @OneToMany(mappedBy = "vehicle")
     private List<Appointment> appointments;
 } 
\ No newline at end of file
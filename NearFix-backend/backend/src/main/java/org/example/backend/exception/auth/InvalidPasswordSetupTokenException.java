@@ -0,0 +1,7 @@
+package org.example.backend.exception.auth;
+
+public class InvalidPasswordSetupTokenException extends AuthException {
+    public InvalidPasswordSetupTokenException() {
+        super("The password setup link is invalid or has expired");
+    }
+}
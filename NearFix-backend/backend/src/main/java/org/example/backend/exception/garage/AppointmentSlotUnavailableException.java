@@ -0,0 +1,7 @@
+package org.example.backend.exception.garage;
+
+public class AppointmentSlotUnavailableException extends RuntimeException {
+    public AppointmentSlotUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -34,6 +34,17 @@ public class GarageExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(AppointmentSlotUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleAppointmentSlotUnavailableException(AppointmentSlotUnavailableException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Appointment Slot Unavailable");
+        body.put("message", ex.getMessage());
+        
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(GarageException.class)
     public ResponseEntity<Map<String, Object>> handleGarageException(GarageException ex) {
         Map<String, Object> body = new HashMap<>();
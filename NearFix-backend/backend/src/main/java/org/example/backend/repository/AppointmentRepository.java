@@ -2,7 +2,10 @@ package org.example.backend.repository;
 
 import org.example.backend.entity.Appointment;
 import org.example.backend.entity.AppointmentStatus;
+import org.example.backend.entity.Role;
 import org.example.backend.entity.User;
+import org.example.backend.repository.projection.EmployeeDailyLoad;
+import org.example.backend.repository.projection.EmployeeLoad;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -24,6 +27,31 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     @Query("SELECT COUNT(a) FROM Appointment a WHERE a.employee.userId = :employeeId AND a.selectedDate BETWEEN :startDate AND :endDate")
     long countByEmployeeAndWeek(@Param("employeeId") UUID employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
+    // Employees of a garage with the given role, least loaded first: fewest active appointments on the day, then in the week.
+    // Cancelled appointments do not count as load but still hold their daily slot.
+    @Query("SELECT u.userId AS employeeId, u.email AS email, " +
+           "SUM(CASE WHEN a.selectedDate = :date AND a.status <> org.example.backend.entity.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END) AS dayCount, " +
+           "SUM(CASE WHEN a.status <> org.example.backend.entity.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END) AS weekCount, " +
+           "MAX(CASE WHEN a.selectedDate = :date THEN a.dailySlot END) AS lastDailySlot " +
+           "FROM User u LEFT JOIN Appointment a ON a.employee = u AND a.selectedDate BETWEEN :weekStart AND :weekEnd " +
+           "WHERE u.garage.garageId = :garageId AND u.role = :role " +
+           "GROUP BY u.userId, u.email " +
+           "ORDER BY SUM(CASE WHEN a.selectedDate = :date AND a.status <> org.example.backend.entity.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN a.status <> org.example.backend.entity.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END)")
+    List<EmployeeLoad> rankEmployeesByLoad(@Param("garageId") UUID garageId,
+                                           @Param("role") Role role,
+                                           @Param("date") LocalDate date,
+                                           @Param("weekStart") LocalDate weekStart,
+                                           @Param("weekEnd") LocalDate weekEnd);
+
+    // Active appointment count and last daily slot per employee and day, used to warm the in-memory load counters
+    @Query("SELECT a.employee.userId AS employeeId, a.selectedDate AS selectedDate, " +
+           "SUM(CASE WHEN a.status <> org.example.backend.entity.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END) AS appointmentCount, " +
+           "MAX(a.dailySlot) AS lastDailySlot " +
+           "FROM Appointment a WHERE a.selectedDate >= :from " +
+           "GROUP BY a.employee.userId, a.selectedDate")
+    List<EmployeeDailyLoad> findDailyLoadsFrom(@Param("from") LocalDate from);
+
     // Find all appointments for a garage on a specific date
     List<Appointment> findByGarage_GarageIdAndSelectedDate(UUID garageId, LocalDate selectedDate);
 
@@ -1,14 +1,22 @@
 package org.example.backend.repository;
 
 import org.example.backend.entity.Comment;
+import org.example.backend.repository.projection.UpvoteCount;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,7 +34,74 @@ public interface CommentRepository extends JpaRepository<Comment, UUID> {
             @Param("searchTerm") String searchTerm,
             Pageable pageable);
 
+    // Matched through the GIN index on search_vector (scripts/forum_search.sql), sorted by the pageable
+    @Query(value = "SELECT c.* FROM comments c WHERE c.post_id = :postId AND " +
+           "c.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           countQuery = "SELECT COUNT(*) FROM comments c WHERE c.post_id = :postId AND " +
+           "c.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           nativeQuery = true)
+    Page<Comment> searchFullTextByPostId(
+            @Param("postId") UUID postId,
+            @Param("searchTerm") String searchTerm,
+            Pageable pageable);
+
+    @Query(value = "SELECT c.* FROM comments c, websearch_to_tsquery('simple', :searchTerm) q " +
+           "WHERE c.post_id = :postId AND c.search_vector @@ q " +
+           "ORDER BY ts_rank(c.search_vector, q) DESC, c.creation_date DESC",
+           countQuery = "SELECT COUNT(*) FROM comments c WHERE c.post_id = :postId AND " +
+           "c.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           nativeQuery = true)
+    Page<Comment> searchFullTextByPostIdByRank(
+            @Param("postId") UUID postId,
+            @Param("searchTerm") String searchTerm,
+            Pageable pageable);
+
+    // Keyset scrolling for a post's comments; the sort must end with commentId so positions are unique
+    Window<Comment> findByPost_PostId(UUID postId, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Comment> findByPost_PostIdAndDescriptionContainingIgnoreCase(
+            UUID postId, String description, ScrollPosition position, Sort sort, Limit limit);
+
+    // Keyset variants of searchFullTextByPostId: the pageable sorts by the key column and comment_id,
+    // the slice after the cursor is (key, comment_id) past the last row in that direction
+    @Query(value = "SELECT c.* FROM comments c WHERE c.post_id = :postId AND " +
+           "c.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           nativeQuery = true)
+    Slice<Comment> searchFullTextByPostIdSlice(
+            @Param("postId") UUID postId,
+            @Param("searchTerm") String searchTerm,
+            Pageable pageable);
+
+    @Query(value = "SELECT c.* FROM comments c WHERE c.post_id = :postId AND " +
+           "c.search_vector @@ websearch_to_tsquery('simple', :searchTerm) AND " +
+           "((:descending AND (c.upvotes, c.comment_id) < (:upvotes, :commentId)) OR " +
+           "(NOT :descending AND (c.upvotes, c.comment_id) > (:upvotes, :commentId)))",
+           nativeQuery = true)
+    Slice<Comment> searchFullTextByPostIdAfterUpvotes(
+            @Param("postId") UUID postId,
+            @Param("searchTerm") String searchTerm,
+            @Param("upvotes") Integer upvotes,
+            @Param("commentId") UUID commentId,
+            @Param("descending") boolean descending,
+            Pageable pageable);
+
+    @Query(value = "SELECT c.* FROM comments c WHERE c.post_id = :postId AND " +
+           "c.search_vector @@ websearch_to_tsquery('simple', :searchTerm) AND " +
+           "((:descending AND (c.creation_date, c.comment_id) < (:creationDate, :commentId)) OR " +
+           "(NOT :descending AND (c.creation_date, c.comment_id) > (:creationDate, :commentId)))",
+           nativeQuery = true)
+    Slice<Comment> searchFullTextByPostIdAfterCreationDate(
+            @Param("postId") UUID postId,
+            @Param("searchTerm") String searchTerm,
+            @Param("creationDate") LocalDate creationDate,
+            @Param("commentId") UUID commentId,
+            @Param("descending") boolean descending,
+            Pageable pageable);
+
     @Modifying
     @Query("UPDATE Comment c SET c.upvotes = :count WHERE c.commentId = :commentId")
     void updateUpvotes(@Param("commentId") UUID commentId, @Param("count") Integer count);
+
+    @Query("SELECT c.commentId AS id, c.upvotes AS upvotes FROM Comment c WHERE c.commentId IN :commentIds")
+    List<UpvoteCount> findUpvotesByCommentIdIn(@Param("commentIds") Collection<UUID> commentIds);
 } 
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.example.backend.repository;
+
+import org.example.backend.entity.FileUpload;
+import org.example.backend.entity.FileUploadStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface FileUploadRepository extends JpaRepository<FileUpload, UUID> {
+    List<FileUpload> findByStatus(FileUploadStatus status);
+}
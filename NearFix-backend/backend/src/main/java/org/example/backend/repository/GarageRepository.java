@@ -2,14 +2,49 @@ package org.example.backend.repository;
 
 import org.example.backend.entity.Garage;
 import org.example.backend.entity.GarageStatus;
+import org.example.backend.repository.projection.GarageLocation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface GarageRepository extends JpaRepository<Garage, UUID> {
+    @EntityGraph(attributePaths = {"user", "user.address", "address"})
     List<Garage> findByUser_UserId(UUID userId);
+
+    @EntityGraph(attributePaths = {"user", "user.address", "address"})
     List<Garage> findByStatus(GarageStatus status);
-}
\ No newline at end of file
+
+    @EntityGraph(attributePaths = {"user", "user.address", "address"})
+    List<Garage> findByGarageIdIn(Collection<UUID> garageIds);
+
+    @Query("SELECT g.garageId AS garageId, g.address.latitude AS latitude, g.address.longitude AS longitude " +
+           "FROM Garage g WHERE g.status = :status")
+    List<GarageLocation> findLocationsByStatus(@Param("status") GarageStatus status);
+
+    @Query("SELECT g FROM Garage g WHERE (g.photoUrl IS NOT NULL AND g.photoKey IS NULL) " +
+           "OR (g.documentUrl IS NOT NULL AND g.documentKey IS NULL)")
+    List<Garage> findWithoutStoredKeys(Limit limit);
+
+    Optional<Garage> findByPhotoUploadId(UUID uploadId);
+
+    Optional<Garage> findByDocumentUploadId(UUID uploadId);
+
+    boolean existsByPhotoKeyOrDocumentKey(String photoKey, String documentKey);
+
+    List<Garage> findByPhotoKeyIsNotNullAndPhotoThumbnailSizesIsNull(Limit limit);
+
+    // Only while the photo is still the one the thumbnails were rendered from
+    @Modifying
+    @Query("UPDATE Garage g SET g.photoThumbnailSizes = :sizes WHERE g.garageId = :garageId AND g.photoKey = :key")
+    int setPhotoThumbnailSizes(@Param("garageId") UUID garageId, @Param("key") String key, @Param("sizes") String sizes);
+}
@@ -1,14 +1,28 @@
 package org.example.backend.repository;
 
 import org.example.backend.entity.GarageSchedule;
+import org.example.backend.entity.GarageStatus;
+import org.example.backend.repository.projection.GarageOpeningSlot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface GarageScheduleRepository extends JpaRepository<GarageSchedule, UUID> {
     List<GarageSchedule> findByGarage_GarageId(UUID garageId);
+    List<GarageSchedule> findByGarage_GarageIdIn(Collection<UUID> garageIds);
     void deleteByGarage_GarageId(UUID garageId);
-} 
\ No newline at end of file
+
+    @Query("SELECT s.garage.garageId AS garageId, s.dayOfWeek AS dayOfWeek, s.openingTime AS openingTime, " +
+           "s.closingTime AS closingTime, s.isClosed AS isClosed FROM GarageSchedule s WHERE s.garage.status = :status")
+    List<GarageOpeningSlot> findOpeningSlotsByGarageStatus(@Param("status") GarageStatus status);
+
+    @Query("SELECT s.garage.garageId AS garageId, s.dayOfWeek AS dayOfWeek, s.openingTime AS openingTime, " +
+           "s.closingTime AS closingTime, s.isClosed AS isClosed FROM GarageSchedule s WHERE s.garage.garageId = :garageId")
+    List<GarageOpeningSlot> findOpeningSlotsByGarageId(@Param("garageId") UUID garageId);
+}
@@ -0,0 +1,32 @@
+package org.example.backend.repository;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.example.backend.entity.OutboxEmail;
+import org.example.backend.entity.OutboxEmailStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, UUID> {
+
+    // FOR UPDATE SKIP LOCKED: instances draining at the same time never claim the same rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<OutboxEmail> findDueForUpdate(@Param("status") OutboxEmailStatus status, @Param("now") LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEmail e WHERE e.status = :status AND e.createdAt < :before")
+    int deleteByStatusCreatedBefore(@Param("status") OutboxEmailStatus status, @Param("before") LocalDateTime before);
+}
@@ -1,14 +1,24 @@
 package org.example.backend.repository;
 
 import org.example.backend.entity.Post;
+import org.example.backend.repository.projection.HotPostCandidate;
+import org.example.backend.repository.projection.UpvoteCount;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
@@ -20,7 +30,62 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
            nativeQuery = true)
     Page<Post> findAllWithFilter(@Param("searchTerm") String searchTerm, Pageable pageable);
 
+    // Matched through the GIN index on search_vector (scripts/forum_search.sql), sorted by the pageable
+    @Query(value = "SELECT p.* FROM posts p WHERE p.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           countQuery = "SELECT COUNT(*) FROM posts p WHERE p.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           nativeQuery = true)
+    Page<Post> searchFullText(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Title matches rank above description matches, newer posts first on ties
+    @Query(value = "SELECT p.* FROM posts p, websearch_to_tsquery('simple', :searchTerm) q " +
+           "WHERE p.search_vector @@ q " +
+           "ORDER BY ts_rank(p.search_vector, q) DESC, p.creation_date DESC",
+           countQuery = "SELECT COUNT(*) FROM posts p WHERE p.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           nativeQuery = true)
+    Page<Post> searchFullTextByRank(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    // Keyset scrolling for the feed; the sort must end with postId so positions are unique
+    Window<Post> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Post> findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
+            String title, String description, ScrollPosition position, Sort sort, Limit limit);
+
+    // Keyset variants of searchFullText: the pageable sorts by the key column and post_id,
+    // the slice after the cursor is (key, post_id) past the last row in that direction
+    @Query(value = "SELECT p.* FROM posts p WHERE p.search_vector @@ websearch_to_tsquery('simple', :searchTerm)",
+           nativeQuery = true)
+    Slice<Post> searchFullTextSlice(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query(value = "SELECT p.* FROM posts p WHERE p.search_vector @@ websearch_to_tsquery('simple', :searchTerm) AND " +
+           "((:descending AND (p.upvotes, p.post_id) < (:upvotes, :postId)) OR " +
+           "(NOT :descending AND (p.upvotes, p.post_id) > (:upvotes, :postId)))",
+           nativeQuery = true)
+    Slice<Post> searchFullTextAfterUpvotes(@Param("searchTerm") String searchTerm,
+                                           @Param("upvotes") Integer upvotes,
+                                           @Param("postId") UUID postId,
+                                           @Param("descending") boolean descending,
+                                           Pageable pageable);
+
+    @Query(value = "SELECT p.* FROM posts p WHERE p.search_vector @@ websearch_to_tsquery('simple', :searchTerm) AND " +
+           "((:descending AND (p.creation_date, p.post_id) < (:creationDate, :postId)) OR " +
+           "(NOT :descending AND (p.creation_date, p.post_id) > (:creationDate, :postId)))",
+           nativeQuery = true)
+    Slice<Post> searchFullTextAfterCreationDate(@Param("searchTerm") String searchTerm,
+                                                @Param("creationDate") LocalDate creationDate,
+                                                @Param("postId") UUID postId,
+                                                @Param("descending") boolean descending,
+                                                Pageable pageable);
+
     @Modifying
     @Query("UPDATE Post p SET p.upvotes = :count WHERE p.postId = :postId")
     void updateUpvotes(@Param("postId") UUID postId, @Param("count") Integer count);
+
+    @Query("SELECT p.postId AS id, p.upvotes AS upvotes FROM Post p WHERE p.postId IN :postIds")
+    List<UpvoteCount> findUpvotesByPostIdIn(@Param("postIds") Collection<UUID> postIds);
+
+    List<Post> findByPostIdIn(Collection<UUID> postIds);
+
+    @Query("SELECT p.postId AS postId, p.upvotes AS upvotes, p.creationDate AS creationDate " +
+           "FROM Post p WHERE p.creationDate >= :since")
+    List<HotPostCandidate> findHotCandidatesCreatedSince(@Param("since") LocalDate since);
 } 
\ No newline at end of file
@@ -2,11 +2,17 @@ package org.example.backend.repository;
 
 import org.example.backend.entity.Role;
 import org.example.backend.entity.User;
+import org.example.backend.repository.projection.AuthorView;
+import org.example.backend.repository.projection.EmployeeContact;
+import org.example.backend.repository.projection.GarageRole;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -15,10 +21,33 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    List<User> findByProfilePhotoUrlIsNotNullAndProfilePhotoKeyIsNull(Limit limit);
+    Optional<User> findByProfilePhotoUploadId(UUID uploadId);
+    boolean existsByProfilePhotoKey(String profilePhotoKey);
+    Optional<User> findByPasswordSetupTokenHash(String passwordSetupTokenHash);
+    List<User> findByProfilePhotoKeyIsNotNullAndProfilePhotoThumbnailSizesIsNull(Limit limit);
+
+    // Only while the photo is still the one the thumbnails were rendered from
+    @Modifying
+    @Query("UPDATE User u SET u.profilePhotoThumbnailSizes = :sizes WHERE u.userId = :userId AND u.profilePhotoKey = :key")
+    int setProfilePhotoThumbnailSizes(@Param("userId") UUID userId, @Param("key") String key, @Param("sizes") String sizes);
     
     @Query("SELECT DISTINCT u FROM User u JOIN u.appointments a WHERE u.role IN :roles AND a.garage.garageId = :garageId")
     List<User> findEmployeesWithAppointmentsByGarageAndRoles(@Param("roles") List<Role> roles, @Param("garageId") UUID garageId);
     
     @Query("SELECT u FROM User u WHERE u.role IN :roles AND u.garage.garageId = :garageId")
     List<User> findEmployeesByGarageAndRoles(@Param("roles") List<Role> roles, @Param("garageId") UUID garageId);
-}
\ No newline at end of file
+
+    @Query("SELECT u.userId AS userId, u.email AS email FROM User u WHERE u.role = :role AND u.garage.garageId = :garageId")
+    List<EmployeeContact> findEmployeeContacts(@Param("garageId") UUID garageId, @Param("role") Role role);
+
+    @Query("SELECT u.userId AS userId, u.firstName AS firstName, u.lastName AS lastName, u.email AS email " +
+           "FROM User u WHERE u.userId IN :userIds")
+    List<AuthorView> findAuthorsByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT DISTINCT u.garage.garageId AS garageId, u.role AS role FROM User u WHERE u.garage IS NOT NULL")
+    List<GarageRole> findGarageRoles();
+
+    @Query("SELECT DISTINCT u.role FROM User u WHERE u.garage.garageId = :garageId")
+    List<Role> findRolesByGarage(@Param("garageId") UUID garageId);
+}
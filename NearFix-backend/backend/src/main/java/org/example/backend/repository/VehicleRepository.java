@@ -1,14 +1,28 @@
 package org.example.backend.repository;
 
 import org.example.backend.entity.Vehicle;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicle, UUID> {
     List<Vehicle> findByUser_UserId(UUID userId);
     boolean existsByVin(String vin);
+    List<Vehicle> findByPhotoUrlIsNotNullAndPhotoKeyIsNull(Limit limit);
+    Optional<Vehicle> findByPhotoUploadId(UUID uploadId);
+    boolean existsByPhotoKey(String photoKey);
+    List<Vehicle> findByPhotoKeyIsNotNullAndPhotoThumbnailSizesIsNull(Limit limit);
+
+    // Only while the photo is still the one the thumbnails were rendered from
+    @Modifying
+    @Query("UPDATE Vehicle v SET v.photoThumbnailSizes = :sizes WHERE v.vehicleId = :vehicleId AND v.photoKey = :key")
+    int setPhotoThumbnailSizes(@Param("vehicleId") UUID vehicleId, @Param("key") String key, @Param("sizes") String sizes);
 } 
\ No newline at end of file
@@ -0,0 +1,10 @@
+package org.example.backend.repository.projection;
+
+import java.util.UUID;
+
+public interface AuthorView {
+    UUID getUserId();
+    String getFirstName();
+    String getLastName();
+    String getEmail();
+}
@@ -0,0 +1,11 @@
+package org.example.backend.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface EmployeeDailyLoad {
+    UUID getEmployeeId();
+    LocalDate getSelectedDate();
+    long getAppointmentCount();
+    Integer getLastDailySlot();
+}
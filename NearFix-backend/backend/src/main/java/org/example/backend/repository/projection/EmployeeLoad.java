@@ -0,0 +1,15 @@
+package org.example.backend.repository.projection;
+
+import java.util.UUID;
+
+public interface EmployeeLoad {
+    UUID getEmployeeId();
+    String getEmail();
+    long getDayCount();
+    long getWeekCount();
+    Integer getLastDailySlot();
+
+    default int nextDailySlot() {
+        return getLastDailySlot() == null ? 1 : getLastDailySlot() + 1;
+    }
+}
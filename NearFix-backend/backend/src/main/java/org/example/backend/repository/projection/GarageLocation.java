@@ -0,0 +1,9 @@
+package org.example.backend.repository.projection;
+
+import java.util.UUID;
+
+public interface GarageLocation {
+    UUID getGarageId();
+    Double getLatitude();
+    Double getLongitude();
+}
@@ -0,0 +1,12 @@
+package org.example.backend.repository.projection;
+
+import java.time.LocalTime;
+import java.util.UUID;
+
+public interface GarageOpeningSlot {
+    UUID getGarageId();
+    Integer getDayOfWeek();
+    LocalTime getOpeningTime();
+    LocalTime getClosingTime();
+    Boolean getIsClosed();
+}
@@ -0,0 +1,10 @@
+package org.example.backend.repository.projection;
+
+import org.example.backend.entity.Role;
+
+import java.util.UUID;
+
+public interface GarageRole {
+    UUID getGarageId();
+    Role getRole();
+}
@@ -0,0 +1,10 @@
+package org.example.backend.repository.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface HotPostCandidate {
+    UUID getPostId();
+    Integer getUpvotes();
+    LocalDate getCreationDate();
+}
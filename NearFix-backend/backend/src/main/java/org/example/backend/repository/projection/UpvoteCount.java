@@ -0,0 +1,8 @@
+package org.example.backend.repository.projection;
+
+import java.util.UUID;
+
+public interface UpvoteCount {
+    UUID getId();
+    Integer getUpvotes();
+}
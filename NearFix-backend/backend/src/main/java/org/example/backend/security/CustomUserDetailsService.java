@@ -1,24 +1,76 @@
 package org.example.backend.security;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.example.backend.entity.User;
 import org.example.backend.repository.UserRepository;
+import org.example.backend.service.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collections;
 
+/**
+ * Loads users for authentication. Loaded users are kept in a bounded, expiring
+ * cache so authenticated requests do not query the database. Changes to a user's
+ * email, password or role and deletions must call {@link #evict(String)}, which
+ * also drops the entry on the other instances through Redis pub/sub.
+ */
 @Service
-@RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
+    private static final String EVICT_CHANNEL = "user:details:evict";
 
     private final UserRepository userRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, UserDetails> cache;
+
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    StringRedisTemplate stringRedisTemplate,
+                                    RedisMessageListenerContainer listenerContainer,
+                                    @Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds,
+                                    @Value("${security.user-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        listenerContainer.addMessageListener(
+                (message, pattern) -> cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(EVICT_CHANNEL));
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        UserDetails cached = cache.get(email, this::loadFromDatabase);
+        // Authentication erases the password of the details it is given, so the cached entry is never handed out
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
+
+    /**
+     * Forgets the cached user once the surrounding transaction commits.
+     */
+    public void evict(String email) {
+        TransactionCallbacks.afterCommit(() -> {
+            cache.invalidate(email);
+            try {
+                stringRedisTemplate.convertAndSend(EVICT_CHANNEL, email);
+            } catch (Exception e) {
+                System.err.println("Failed to publish user cache eviction for " + email + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private UserDetails loadFromDatabase(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
@@ -28,4 +80,4 @@ public class CustomUserDetailsService implements UserDetailsService {
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
         );
     }
-} 
\ No newline at end of file
+}
@@ -18,12 +18,20 @@ import java.util.function.Function;
 @Component
 @RequiredArgsConstructor
 public class JwtTokenUtil {
+    // Request attribute holding the verified claims, so later handlers do not parse the token again
+    public static final String CLAIMS_ATTRIBUTE = JwtTokenUtil.class.getName() + ".claims";
+
     private final JwtConfig jwtConfig;
     private Key key;
+    // Immutable and thread-safe, built once instead of per parse
+    private JwtParser parser;
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
     }
 
     public String generateToken(User user) {
@@ -49,14 +57,30 @@ public class JwtTokenUtil {
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiration of the token once; the returned claims
+     * can then be checked with the claims based methods below without parsing again.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims) && !isRefreshToken(claims);
+    }
+
+    public Boolean validateRefreshToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims) && isRefreshToken(claims);
+    }
+
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token) && !isRefreshToken(token));
+        return validateToken(parseClaims(token), userDetails);
     }
 
     public Boolean validateRefreshToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token) && isRefreshToken(token));
+        return validateRefreshToken(parseClaims(token), userDetails);
     }
 
     public String extractUsername(String token) {
@@ -68,23 +92,14 @@ public class JwtTokenUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return claimsResolver.apply(parseClaims(token));
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
-    private Boolean isRefreshToken(String token) {
-        return "REFRESH".equals(extractAllClaims(token).get("type", String.class));
+    private Boolean isRefreshToken(Claims claims) {
+        return "REFRESH".equals(claims.get("type", String.class));
     }
 } 
\ No newline at end of file
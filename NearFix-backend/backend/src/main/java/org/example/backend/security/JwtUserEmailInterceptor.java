@@ -1,5 +1,6 @@
 package org.example.backend.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -29,9 +30,13 @@ public class JwtUserEmailInterceptor implements HandlerInterceptor {
         }
 
         try {
-            String jwt = authHeader.substring(7);
-            log.debug("Extracted JWT token: {}", jwt);
-            String userEmail = jwtTokenUtil.extractUsername(jwt);
+            Claims claims = (Claims) request.getAttribute(JwtTokenUtil.CLAIMS_ATTRIBUTE);
+            if (claims == null) {
+                String jwt = authHeader.substring(7);
+                log.debug("Extracted JWT token: {}", jwt);
+                claims = jwtTokenUtil.parseClaims(jwt);
+            }
+            String userEmail = claims.getSubject();
             log.debug("Extracted user email: {}", userEmail);
             
             if (userEmail != null) {
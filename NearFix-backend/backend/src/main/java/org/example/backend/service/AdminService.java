@@ -3,13 +3,10 @@ package org.example.backend.service;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.garage.GarageResponse;
 import org.example.backend.dto.garage.GarageStatusRequest;
-import org.example.backend.dto.garage.GarageScheduleResponse;
-import org.example.backend.dto.user.AddressResponse;
 import org.example.backend.entity.Garage;
 import org.example.backend.entity.GarageStatus;
 import org.example.backend.exception.garage.GarageNotFoundException;
 import org.example.backend.repository.GarageRepository;
-import org.example.backend.repository.GarageScheduleRepository;
 import org.example.backend.repository.UserRepository;
 import org.example.backend.repository.AppointmentRepository;
 import org.example.backend.repository.PostRepository;
@@ -19,7 +16,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -28,18 +24,18 @@ import java.util.Map;
 public class AdminService {
 
     private final GarageRepository garageRepository;
-    private final GarageScheduleRepository scheduleRepository;
     private final EmailService emailService;
     private final UserRepository userRepository;
     private final AppointmentRepository appointmentRepository;
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
+    private final GarageSearchIndex garageSearchIndex;
+    private final GarageResponseMapper garageResponseMapper;
+    private final GarageResponseCache garageResponseCache;
 
+    @Transactional(readOnly = true)
     public List<GarageResponse> getPendingGarages() {
-        return garageRepository.findByStatus(GarageStatus.PENDING)
-                .stream()
-                .map(this::mapToGarageResponse)
-                .collect(Collectors.toList());
+        return garageResponseMapper.toResponses(garageRepository.findByStatus(GarageStatus.PENDING));
     }
 
     @Transactional
@@ -51,6 +47,8 @@ public class AdminService {
         garage.setRejectionReason(request.getRejectionReason());
 
         garage = garageRepository.save(garage);
+        garageSearchIndex.update(garage);
+        garageResponseCache.evict(garageId);
 
         // Send email notification to garage_owner
         emailService.sendGarageStatusUpdate(
@@ -60,51 +58,7 @@ public class AdminService {
             request.getRejectionReason()
         );
 
-        return mapToGarageResponse(garage);
-    }
-
-    private GarageResponse mapToGarageResponse(Garage garage) {
-        List<GarageScheduleResponse> schedule = scheduleRepository.findByGarage_GarageId(garage.getGarageId())
-                .stream()
-                .map(this::mapToScheduleResponse)
-                .collect(Collectors.toList());
-
-        return GarageResponse.builder()
-                .garageId(garage.getGarageId())
-                .name(garage.getName())
-                .userId(garage.getUser().getUserId())
-                .ownerName(garage.getUser().getFirstName() + " " + garage.getUser().getLastName())
-                .ownerEmail(garage.getUser().getEmail())
-                .address(mapToAddressResponse(garage.getAddress()))
-                .photoUrl(garage.getPhotoUrl())
-                .documentUrl(garage.getDocumentUrl())
-                .status(garage.getStatus())
-                .rejectionReason(garage.getRejectionReason())
-                .schedule(schedule)
-                .build();
-    }
-
-    private GarageScheduleResponse mapToScheduleResponse(org.example.backend.entity.GarageSchedule schedule) {
-        return GarageScheduleResponse.builder()
-                .scheduleId(schedule.getScheduleId())
-                .dayOfWeek(schedule.getDayOfWeek())
-                .openingTime(schedule.getOpeningTime())
-                .closingTime(schedule.getClosingTime())
-                .isClosed(schedule.getIsClosed())
-                .build();
-    }
-
-    private AddressResponse mapToAddressResponse(org.example.backend.entity.Address address) {
-        return AddressResponse.builder()
-                .addressId(address.getAddressId())
-                .country(address.getCountry())
-                .city(address.getCity())
-                .street(address.getStreet())
-                .number(address.getNumber())
-                .zipCode(address.getZipCode())
-                .latitude(address.getLatitude())
-                .longitude(address.getLongitude())
-                .build();
+        return garageResponseMapper.toResponse(garage);
     }
 
     public Map<String, Long> getDashboardStats() {
@@ -0,0 +1,131 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.Role;
+import org.example.backend.exception.garage.AppointmentSlotUnavailableException;
+import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.EmployeeLoad;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Picks the employee an appointment goes to: the one with the fewest active
+ * appointments on the selected day, ties broken by the fewest in that week.
+ * Loads come from {@link AppointmentLoadCounters}; weeks the counters do not
+ * cover are ranked by a single aggregated query.
+ * <p>
+ * Bookings for the same garage, role and date are serialized with a striped lock
+ * held until the surrounding transaction completes, so concurrent customers see
+ * each other's appointments instead of piling onto the same employee. Other
+ * dates and roles of the garage are not blocked. Across instances the unique
+ * (employee, date, daily slot) key on appointments is the last line of defense.
+ */
+@Service
+@RequiredArgsConstructor
+public class AppointmentAssignmentService {
+    private static final int LOCK_STRIPES = 64;
+    private static final long LOCK_TIMEOUT_SECONDS = 10;
+
+    private final AppointmentRepository appointmentRepository;
+    private final UserRepository userRepository;
+    private final AppointmentLoadCounters loadCounters;
+
+    private final ReentrantLock[] locks = createLocks();
+
+    private record CountedLoad(UUID employeeId, String email, long dayCount, long weekCount, Integer lastDailySlot)
+            implements EmployeeLoad {
+        @Override
+        public UUID getEmployeeId() {
+            return employeeId;
+        }
+
+        @Override
+        public String getEmail() {
+            return email;
+        }
+
+        @Override
+        public long getDayCount() {
+            return dayCount;
+        }
+
+        @Override
+        public long getWeekCount() {
+            return weekCount;
+        }
+
+        @Override
+        public Integer getLastDailySlot() {
+            return lastDailySlot;
+        }
+    }
+
+    /**
+     * Reserves the least loaded employee for the given day until the current
+     * transaction completes. The caller should store the returned employee and
+     * {@link EmployeeLoad#nextDailySlot()} on the appointment.
+     */
+    public Optional<EmployeeLoad> reserveEmployee(UUID garageId, Role role, LocalDate date) {
+        return reserveEmployee(garageId, role, date, null);
+    }
+
+    /**
+     * Same as {@link #reserveEmployee(UUID, Role, LocalDate)} but never returns
+     * {@code excludedEmployeeId}, e.g. the employee who just declined the appointment.
+     */
+    public Optional<EmployeeLoad> reserveEmployee(UUID garageId, Role role, LocalDate date, UUID excludedEmployeeId) {
+        lockUntilCompletion(garageId, role, date);
+        LocalDate weekStart = date.with(DayOfWeek.MONDAY);
+        LocalDate weekEnd = weekStart.plusDays(6);
+        if (!loadCounters.covers(weekStart)) {
+            return appointmentRepository.rankEmployeesByLoad(garageId, role, date, weekStart, weekEnd)
+                    .stream()
+                    .filter(load -> !load.getEmployeeId().equals(excludedEmployeeId))
+                    .findFirst();
+        }
+        return userRepository.findEmployeeContacts(garageId, role)
+                .stream()
+                .filter(employee -> !employee.getUserId().equals(excludedEmployeeId))
+                .<EmployeeLoad>map(employee -> new CountedLoad(
+                        employee.getUserId(),
+                        employee.getEmail(),
+                        loadCounters.dayCount(employee.getUserId(), date),
+                        loadCounters.weekCount(employee.getUserId(), weekStart),
+                        loadCounters.lastDailySlot(employee.getUserId(), date)))
+                .min(Comparator.comparingLong(EmployeeLoad::getDayCount).thenComparingLong(EmployeeLoad::getWeekCount));
+    }
+
+    private void lockUntilCompletion(UUID garageId, Role role, LocalDate date) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Employee reservation requires an active transaction");
+        }
+        ReentrantLock lock = locks[Math.floorMod(Objects.hash(garageId, role, date), LOCK_STRIPES)];
+        try {
+            if (!lock.tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new AppointmentSlotUnavailableException("Too many bookings for this date right now, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppointmentSlotUnavailableException("Booking was interrupted, please try again");
+        }
+        TransactionCallbacks.afterCompletion(committed -> lock.unlock());
+    }
+
+    private static ReentrantLock[] createLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.projection.EmployeeDailyLoad;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Active appointment count and last daily slot per (employee, day), kept in memory
+ * so employee assignment does not have to count appointments in the database.
+ * Covers every day from the Monday of the current week on; older weeks are
+ * answered by the database. Changes are applied once the transaction commits and
+ * a periodic reconciliation against the database corrects any drift.
+ */
+@Component
+@RequiredArgsConstructor
+public class AppointmentLoadCounters {
+
+    private final AppointmentRepository appointmentRepository;
+
+    private final Map<DayKey, DailyLoad> loads = new ConcurrentHashMap<>();
+    // First day covered by the counters, null until warmed up
+    private volatile LocalDate coveredFrom;
+
+    private record DayKey(UUID employeeId, LocalDate date) {
+    }
+
+    private record Observed(long count, int lastSlot) {
+        static final Observed NONE = new Observed(0, 0);
+    }
+
+    private static final class DailyLoad {
+        private final LongAdder count = new LongAdder();
+        private final AtomicInteger lastSlot = new AtomicInteger();
+
+        private DailyLoad(long count, int lastSlot) {
+            this.count.add(count);
+            this.lastSlot.set(lastSlot);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate from = LocalDate.now().with(DayOfWeek.MONDAY);
+        loads.putAll(loadFromDatabase(from));
+        coveredFrom = from;
+    }
+
+    // Corrects the counters in place: replacing a DailyLoad would drop increments made on the old one
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
+    public void reconcile() {
+        LocalDate from = LocalDate.now().with(DayOfWeek.MONDAY);
+        Map<DayKey, Observed> observed = new HashMap<>();
+        loads.forEach((key, load) -> observed.put(key, new Observed(load.count.sum(), load.lastSlot.get())));
+        Map<DayKey, DailyLoad> actual = loadFromDatabase(from);
+
+        int drifted = 0;
+        int skipped = 0;
+        Set<DayKey> keys = new HashSet<>(observed.keySet());
+        keys.addAll(actual.keySet());
+        for (DayKey key : keys) {
+            if (key.date().isBefore(from)) {
+                loads.remove(key);
+                continue;
+            }
+            DailyLoad expected = actual.get(key);
+            long expectedCount = expected == null ? 0 : expected.count.sum();
+            int expectedSlot = expected == null ? 0 : expected.lastSlot.get();
+            Observed seen = observed.getOrDefault(key, Observed.NONE);
+            if (seen.count() == expectedCount && seen.lastSlot() == expectedSlot) {
+                continue;
+            }
+            DailyLoad current = loads.computeIfAbsent(key, k -> new DailyLoad(0, 0));
+            // Changed since the snapshot: the database read may or may not include that change, retry next run
+            if (current.count.sum() != seen.count() || !current.lastSlot.compareAndSet(seen.lastSlot(), expectedSlot)) {
+                skipped++;
+                continue;
+            }
+            current.count.add(expectedCount - seen.count());
+            drifted++;
+        }
+        coveredFrom = from;
+        if (drifted > 0 || skipped > 0) {
+            System.err.println("Appointment load counters drifted for " + drifted + " employee days, corrected from database"
+                    + (skipped > 0 ? "; " + skipped + " days changed meanwhile and are checked on the next run" : ""));
+        }
+    }
+
+    /**
+     * True when the counters hold every day of the week starting at {@code weekStart}.
+     */
+    public boolean covers(LocalDate weekStart) {
+        LocalDate from = coveredFrom;
+        return from != null && !weekStart.isBefore(from);
+    }
+
+    public long dayCount(UUID employeeId, LocalDate date) {
+        DailyLoad load = loads.get(new DayKey(employeeId, date));
+        return load == null ? 0 : load.count.sum();
+    }
+
+    public long weekCount(UUID employeeId, LocalDate weekStart) {
+        long total = 0;
+        for (int day = 0; day < 7; day++) {
+            total += dayCount(employeeId, weekStart.plusDays(day));
+        }
+        return total;
+    }
+
+    public Integer lastDailySlot(UUID employeeId, LocalDate date) {
+        DailyLoad load = loads.get(new DayKey(employeeId, date));
+        return load == null || load.lastSlot.get() == 0 ? null : load.lastSlot.get();
+    }
+
+    /**
+     * Counts an appointment for the employee once the surrounding transaction commits.
+     * {@code dailySlot} may be null when the appointment keeps a slot that is already counted.
+     */
+    public void booked(UUID employeeId, LocalDate date, Integer dailySlot) {
+        TransactionCallbacks.afterCommit(() -> {
+            DailyLoad load = loads.computeIfAbsent(new DayKey(employeeId, date), key -> new DailyLoad(0, 0));
+            load.count.increment();
+            if (dailySlot != null) {
+                load.lastSlot.accumulateAndGet(dailySlot, Math::max);
+            }
+        });
+    }
+
+    /**
+     * Stops counting an appointment (cancelled or moved to another employee) once the
+     * surrounding transaction commits. Its daily slot stays taken.
+     */
+    public void released(UUID employeeId, LocalDate date) {
+        TransactionCallbacks.afterCommit(() -> loads.computeIfAbsent(new DayKey(employeeId, date), key -> new DailyLoad(0, 0)).count.decrement());
+    }
+
+    private Map<DayKey, DailyLoad> loadFromDatabase(LocalDate from) {
+        Map<DayKey, DailyLoad> result = new HashMap<>();
+        for (EmployeeDailyLoad row : appointmentRepository.findDailyLoadsFrom(from)) {
+            int lastSlot = row.getLastDailySlot() == null ? 0 : row.getLastDailySlot();
+            result.put(new DayKey(row.getEmployeeId(), row.getSelectedDate()), new DailyLoad(row.getAppointmentCount(), lastSlot));
+        }
+        return result;
+    }
+}
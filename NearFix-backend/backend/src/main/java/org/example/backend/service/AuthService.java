@@ -1,29 +1,38 @@
 package org.example.backend.service;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.auth.AddressRequest;
 import org.example.backend.dto.auth.AuthResponse;
 import org.example.backend.dto.auth.LoginRequest;
+import org.example.backend.dto.auth.PasswordSetupRequest;
 import org.example.backend.dto.auth.RefreshTokenRequest;
 import org.example.backend.dto.auth.RegisterRequest;
+import org.example.backend.dto.storage.StoredFile;
 import org.example.backend.entity.Address;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.User;
+import org.example.backend.exception.auth.AuthException;
 import org.example.backend.exception.auth.EmailAlreadyExistsException;
 import org.example.backend.exception.auth.InvalidCredentialsException;
+import org.example.backend.exception.auth.InvalidPasswordSetupTokenException;
 import org.example.backend.exception.user.UserNotFoundException;
 import org.example.backend.repository.AddressRepository;
 import org.example.backend.repository.UserRepository;
+import org.example.backend.security.CustomUserDetailsService;
 import org.example.backend.security.JwtTokenUtil;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -33,8 +42,9 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenUtil jwtTokenUtil;
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
+    private final CustomUserDetailsService userDetailsService;
     private final S3Service s3Service;
+    private final PasswordSetupTokens passwordSetupTokens;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) throws IOException {
@@ -55,9 +65,9 @@ public class AuthService {
         address = addressRepository.save(address);
 
         // Upload profile photo if provided
-        String profilePhotoUrl = null;
+        StoredFile profilePhoto = null;
         if (request.getProfilePhoto() != null && !request.getProfilePhoto().isEmpty()) {
-            profilePhotoUrl = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
+            profilePhoto = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
         }
 
         // Create user
@@ -69,7 +79,10 @@ public class AuthService {
         user.setPhoneNumber(request.getPhoneNumber());
         user.setRole(request.getRole());
         user.setAddress(address);
-        user.setProfilePhotoUrl(profilePhotoUrl);
+        if (profilePhoto != null) {
+            user.setProfilePhotoUploadId(profilePhoto.getUploadId());
+            user.setProfilePhotoUploadStatus(FileUploadStatus.PENDING);
+        }
 
         userRepository.save(user);
 
@@ -80,7 +93,7 @@ public class AuthService {
                 .refreshToken(refreshToken)
                 .email(user.getEmail())
                 .role(user.getRole().name())
-                .profilePhotoUrl(user.getProfilePhotoUrl())
+                .profilePhotoUrl(s3Service.getProfilePhotoUrl(user.getProfilePhotoKey()))
                 .build();
     }
 
@@ -104,16 +117,16 @@ public class AuthService {
                 .refreshToken(refreshToken)
                 .email(user.getEmail())
                 .role(user.getRole().name())
-                .profilePhotoUrl(user.getProfilePhotoUrl())
+                .profilePhotoUrl(s3Service.getProfilePhotoUrl(user.getProfilePhotoKey()))
                 .build();
     }
 
     public AuthResponse refreshToken(RefreshTokenRequest request) {
-        String refreshToken = request.getRefreshToken();
-        String userEmail = jwtTokenUtil.extractUsername(refreshToken);
+        Claims claims = jwtTokenUtil.parseClaims(request.getRefreshToken());
+        String userEmail = claims.getSubject();
         UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
         
-        if (!jwtTokenUtil.validateRefreshToken(refreshToken, userDetails)) {
+        if (!jwtTokenUtil.validateRefreshToken(claims, userDetails)) {
             throw new InvalidCredentialsException();
         }
 
@@ -128,20 +141,48 @@ public class AuthService {
                 .refreshToken(newRefreshToken)
                 .email(user.getEmail())
                 .role(user.getRole().name())
-                .profilePhotoUrl(user.getProfilePhotoUrl())
+                .profilePhotoUrl(s3Service.getProfilePhotoUrl(user.getProfilePhotoKey()))
                 .build();
     }
 
+    // Sets the password of an account created with a setup link; the link cannot be used again
+    @Transactional
+    public void setupPassword(PasswordSetupRequest request) {
+        if (request.getToken() == null || request.getToken().isBlank()) {
+            throw new InvalidPasswordSetupTokenException();
+        }
+        if (request.getPassword() == null || request.getPassword().isBlank()) {
+            throw new AuthException("Password must not be empty");
+        }
+        User user = userRepository.findByPasswordSetupTokenHash(passwordSetupTokens.hash(request.getToken()))
+                .orElseThrow(InvalidPasswordSetupTokenException::new);
+        if (user.getPasswordSetupExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new InvalidPasswordSetupTokenException();
+        }
+        user.setPasswordSetupTokenHash(null);
+        user.setPasswordSetupExpiresAt(null);
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
+    }
+
+    // URL of the current photo, which is kept until the new one reaches S3, and the status of that upload
     @Transactional
-    public String updateProfilePhoto(MultipartFile photo, String userEmail) throws IOException {
+    public Map<String, String> updateProfilePhoto(MultipartFile photo, String userEmail) throws IOException {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + userEmail));
 
-        String newProfilePhotoUrl = s3Service.updateProfilePhoto(photo, userEmail);
-        user.setProfilePhotoUrl(newProfilePhotoUrl);
-        userRepository.save(user);
-        
-        return newProfilePhotoUrl;
+        StoredFile profilePhoto = s3Service.uploadProfilePhoto(photo, userEmail);
+        if (profilePhoto != null) {
+            user.setProfilePhotoUploadId(profilePhoto.getUploadId());
+            user.setProfilePhotoUploadStatus(FileUploadStatus.PENDING);
+            userRepository.save(user);
+        }
+
+        Map<String, String> result = new HashMap<>();
+        result.put("photoUrl", s3Service.getProfilePhotoUrl(user.getProfilePhotoKey()));
+        result.put("uploadStatus", user.getProfilePhotoUploadStatus() == null ? null : user.getProfilePhotoUploadStatus().name());
+        return result;
     }
 
     @Transactional
@@ -150,13 +191,18 @@ public class AuthService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + userEmail));
         
-        // Only proceed if the user has a profile photo
-        if (user.getProfilePhotoUrl() != null) {
+        // Only proceed if the user has a profile photo, or one on its way
+        if (user.getProfilePhotoKey() != null || user.getProfilePhotoUploadId() != null) {
             // Delete the photo from S3
-            s3Service.deleteProfilePhoto(userEmail);
+            s3Service.deleteProfilePhoto(user.getProfilePhotoKey());
             
             // Update the user's profile photo URL to null
             user.setProfilePhotoUrl(null);
+            user.setProfilePhotoKey(null);
+            user.setProfilePhotoContentType(null);
+            user.setProfilePhotoThumbnailSizes(null);
+            user.setProfilePhotoUploadId(null);
+            user.setProfilePhotoUploadStatus(null);
             userRepository.save(user);
         }
     }
@@ -165,12 +211,12 @@ public class AuthService {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + userEmail));
         
-        if (user.getProfilePhotoUrl() == null) {
+        if (user.getProfilePhotoKey() == null) {
             return null;
         }
 
         try {
-            return s3Service.getProfilePhotoUrl(userEmail);
+            return s3Service.getProfilePhotoUrl(user.getProfilePhotoKey());
         } catch (Exception e) {
             return null;
         }
@@ -5,29 +5,38 @@ import org.example.backend.dto.comment.CommentFilterRequest;
 import org.example.backend.dto.comment.CommentRequest;
 import org.example.backend.dto.comment.CommentResponse;
 import org.example.backend.dto.commentlike.CommentLikeRequest;
+import org.example.backend.dto.pagination.CursorSlice;
+import org.example.backend.dto.like.LikeToggleResult;
 import org.example.backend.entity.Comment;
 import org.example.backend.entity.Post;
 import org.example.backend.entity.Role;
 import org.example.backend.entity.User;
 import org.example.backend.exception.comment.CommentNotFoundException;
+import org.example.backend.exception.comment.InvalidCommentDataException;
 import org.example.backend.exception.post.PostNotFoundException;
 import org.example.backend.exception.user.UserNotFoundException;
 import org.example.backend.repository.CommentRepository;
 import org.example.backend.repository.PostRepository;
 import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.AuthorView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -37,6 +46,13 @@ public class CommentService {
     private final UserRepository userRepository;
     private final RedisCommentLikeService redisCommentLikeService;
     private final WebSocketCommentLikeService webSocketCommentLikeService;
+    private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+    private final LikeCountReconciler likeCountReconciler;
+    private final ForumFullTextSearch forumFullTextSearch;
+    private final ForumAuthors forumAuthors;
+
+    // Orders search results by how well they match; without a search term it falls back to the newest first
+    private static final String RELEVANCE_SORT = "relevance";
 
     @Transactional
     public CommentResponse createComment(UUID postId, CommentRequest request, String userEmail) {
@@ -66,10 +82,13 @@ public class CommentService {
         return mapToCommentResponse(comment, userEmail);
     }
 
-    public Page<CommentResponse> getCommentsForPost(UUID postId, CommentFilterRequest filterRequest, String userEmail) {
+    public Slice<CommentResponse> getCommentsForPost(UUID postId, CommentFilterRequest filterRequest, String userEmail) {
         if (!postRepository.existsById(postId)) {
             throw new PostNotFoundException(postId);
         }
+        if (filterRequest.isKeyset() || filterRequest.getCursor() != null) {
+            return getCommentsByCursor(postId, filterRequest, userEmail);
+        }
 
         String sortBy = mapSortField(filterRequest.getSortBy());
         Sort.Direction direction = Sort.Direction.fromString(filterRequest.getSortDirection());
@@ -79,13 +98,79 @@ public class CommentService {
                 Sort.by(direction, sortBy)
         );
 
-        Page<Comment> comments = commentRepository.findAllByPostIdWithFilter(
-                postId,
-                filterRequest.getSearchTerm(),
-                pageable
-        );
+        String searchTerm = normalizeSearchTerm(filterRequest.getSearchTerm());
+        Page<Comment> comments;
+        if (searchTerm != null && forumFullTextSearch.isAvailable()) {
+            comments = RELEVANCE_SORT.equals(filterRequest.getSortBy())
+                    ? commentRepository.searchFullTextByPostIdByRank(postId, searchTerm, PageRequest.of(filterRequest.getPage(), filterRequest.getSize()))
+                    : commentRepository.searchFullTextByPostId(postId, searchTerm, pageable);
+        } else {
+            comments = commentRepository.findAllByPostIdWithFilter(postId, searchTerm, pageable);
+        }
+
+        return new PageImpl<>(mapToCommentResponses(comments.getContent(), userEmail), comments.getPageable(), comments.getTotalElements());
+    }
+
+    // Seeks past the last comment of the previous slice instead of skipping rows, and never counts
+    private CursorSlice<CommentResponse> getCommentsByCursor(UUID postId, CommentFilterRequest filterRequest, String userEmail) {
+        String sortKey = "upvotes".equals(filterRequest.getSortBy()) ? "upvotes" : "creationDate";
+        Sort.Direction direction = Sort.Direction.fromString(filterRequest.getSortDirection());
+        CursorSlice.Position after = decodeCommentsCursor(filterRequest.getCursor(), sortKey);
+        int size = filterRequest.getSize();
+
+        String searchTerm = normalizeSearchTerm(filterRequest.getSearchTerm());
+        List<Comment> comments;
+        boolean hasNext;
+        if (searchTerm != null && forumFullTextSearch.isAvailable()) {
+            Slice<Comment> slice = searchFullTextAfter(postId, searchTerm, sortKey, direction, after, size);
+            comments = slice.getContent();
+            hasNext = slice.hasNext();
+        } else {
+            Sort sort = Sort.by(direction, sortKey, "commentId");
+            ScrollPosition position = after == null ? ScrollPosition.keyset() : after.toScrollPosition(sortKey, "commentId");
+            Window<Comment> window = searchTerm == null
+                    ? commentRepository.findByPost_PostId(postId, position, sort, Limit.of(size))
+                    : commentRepository.findByPost_PostIdAndDescriptionContainingIgnoreCase(
+                            postId, searchTerm, position, sort, Limit.of(size));
+            comments = window.getContent();
+            hasNext = window.hasNext();
+        }
 
-        return comments.map(comment -> mapToCommentResponse(comment, userEmail));
+        String nextCursor = null;
+        if (hasNext && !comments.isEmpty()) {
+            Comment last = comments.get(comments.size() - 1);
+            Object value = "upvotes".equals(sortKey) ? last.getUpvotes() : last.getCreationDate();
+            nextCursor = CursorSlice.encodeCursor(sortKey, value, last.getCommentId());
+        }
+        return new CursorSlice<>(mapToCommentResponses(comments, userEmail),
+                PageRequest.of(0, size, Sort.by(direction, sortKey, "commentId")), hasNext, nextCursor);
+    }
+
+    // Same tsvector match as the paged search, so keyset mode does not change which comments are found
+    private Slice<Comment> searchFullTextAfter(UUID postId, String searchTerm, String sortKey, Sort.Direction direction,
+                                               CursorSlice.Position after, int size) {
+        Pageable pageable = PageRequest.of(0, size, Sort.by(direction, mapSortField(sortKey), "comment_id"));
+        if (after == null) {
+            return commentRepository.searchFullTextByPostIdSlice(postId, searchTerm, pageable);
+        }
+        return "upvotes".equals(sortKey)
+                ? commentRepository.searchFullTextByPostIdAfterUpvotes(postId, searchTerm, (Integer) after.value(),
+                        after.id(), direction.isDescending(), pageable)
+                : commentRepository.searchFullTextByPostIdAfterCreationDate(postId, searchTerm, (LocalDate) after.value(),
+                        after.id(), direction.isDescending(), pageable);
+    }
+
+    private CursorSlice.Position decodeCommentsCursor(String cursor, String sortKey) {
+        try {
+            return CursorSlice.decodeCursor(cursor, sortKey,
+                    value -> "upvotes".equals(sortKey) ? Integer.valueOf(value) : LocalDate.parse(value));
+        } catch (Exception e) {
+            throw new InvalidCommentDataException("Invalid comments cursor");
+        }
+    }
+
+    private static String normalizeSearchTerm(String searchTerm) {
+        return searchTerm == null || searchTerm.isBlank() ? null : searchTerm.trim();
     }
 
     private String mapSortField(String field) {
@@ -98,25 +183,44 @@ public class CommentService {
     }
 
     private CommentResponse mapToCommentResponse(Comment comment, String userEmail) {
-        // Use Redis like count for real-time accuracy, fallback to database count
-        Long redisLikeCount = redisCommentLikeService.getLikeCount(comment.getCommentId());
-        int upvotes = redisLikeCount != null ? redisLikeCount.intValue() : comment.getUpvotes();
-        
-        // Check if user has liked this comment
-        boolean hasLiked = userEmail != null && redisCommentLikeService.hasUserLiked(comment.getCommentId(), userEmail);
-        
-        return CommentResponse.builder()
-                .commentId(comment.getCommentId())
-                .description(comment.getDescription())
-                .upvotes(upvotes)
-                .creationDate(comment.getCreationDate())
-                .authorName(comment.getUser().getFirstName() + " " + comment.getUser().getLastName())
-                .authorId(comment.getUser().getUserId())
-                .authorEmail(comment.getUser().getEmail())
-                .postId(comment.getPost().getPostId())
-                .isEdited(comment.getIsEdited())
-                .hasLiked(hasLiked)
-                .build();
+        return mapToCommentResponses(List.of(comment), userEmail).get(0);
+    }
+
+    // Resolves like counts and the user's likes for the whole list in two Redis calls
+    private List<CommentResponse> mapToCommentResponses(List<Comment> comments, String userEmail) {
+        List<UUID> commentIds = comments.stream().map(Comment::getCommentId).toList();
+        Map<UUID, Long> redisLikeCounts = redisCommentLikeService.getLikeCounts(commentIds);
+        Set<UUID> likedCommentIds = userEmail != null
+                ? redisCommentLikeService.getLikedBy(userEmail, commentIds)
+                : Set.of();
+        Map<UUID, AuthorView> authors = forumAuthors.resolve(comments.stream().map(Comment::getUser).toList());
+
+        List<CommentResponse> responses = new ArrayList<>(comments.size());
+        for (Comment comment : comments) {
+            // Use Redis like count for real-time accuracy, fallback to database count
+            Long redisLikeCount = redisLikeCounts.get(comment.getCommentId());
+            if (redisLikeCount == null) {
+                likeCountReconciler.markCommentDirty(comment.getCommentId());
+            }
+            int upvotes = redisLikeCount != null
+                    ? redisLikeCount.intValue()
+                    : comment.getUpvotes() + (int) likeWriteBehindBuffer.pendingCommentDelta(comment.getCommentId());
+            AuthorView author = authors.get(comment.getUser().getUserId());
+
+            responses.add(CommentResponse.builder()
+                    .commentId(comment.getCommentId())
+                    .description(comment.getDescription())
+                    .upvotes(upvotes)
+                    .creationDate(comment.getCreationDate())
+                    .authorName(author.getFirstName() + " " + author.getLastName())
+                    .authorId(author.getUserId())
+                    .authorEmail(author.getEmail())
+                    .postId(comment.getPost().getPostId())
+                    .isEdited(comment.getIsEdited())
+                    .hasLiked(likedCommentIds.contains(comment.getCommentId()))
+                    .build());
+        }
+        return responses;
     }
 
     public List<CommentResponse> getPostComments(UUID postId, String userEmail) {
@@ -124,10 +228,7 @@ public class CommentService {
             throw new PostNotFoundException(postId);
         }
 
-        return commentRepository.findByPost_PostIdOrderByCreationDateDesc(postId)
-                .stream()
-                .map(comment -> mapToCommentResponse(comment, userEmail))
-                .collect(Collectors.toList());
+        return mapToCommentResponses(commentRepository.findByPost_PostIdOrderByCreationDateDesc(postId), userEmail);
     }
 
     @Transactional
@@ -170,47 +271,39 @@ public class CommentService {
         commentRepository.delete(comment);
     }
 
-    @Transactional
     public void processBatchLikes(List<CommentLikeRequest> likes, String username) {
-        // Group likes by comment to minimize database operations
-        Map<UUID, Long> commentLikeCounts = new java.util.HashMap<>();
-        
+        Map<UUID, Long> latestCounts = new java.util.HashMap<>();
+
         for (CommentLikeRequest like : likes) {
-            if (like.isLike()) {
-                redisCommentLikeService.incrementLike(like.getCommentId(), username);
-                commentLikeCounts.merge(like.getCommentId(), 1L, Long::sum);
-            } else {
-                redisCommentLikeService.decrementLike(like.getCommentId(), username);
-                commentLikeCounts.merge(like.getCommentId(), -1L, Long::sum);
+            LikeToggleResult result = like.isLike()
+                    ? redisCommentLikeService.incrementLike(like.getCommentId(), username, () -> storedLikeCount(like.getCommentId()))
+                    : redisCommentLikeService.decrementLike(like.getCommentId(), username, () -> storedLikeCount(like.getCommentId()));
+            // Repeated likes or unlikes leave Redis untouched and must not reach the database either.
+            // The database catches up through the write-behind buffer, fed right after each toggle
+            if (result.isChanged()) {
+                likeWriteBehindBuffer.addCommentDelta(like.getCommentId(), like.isLike() ? 1L : -1L);
+                latestCounts.put(like.getCommentId(), result.getLikeCount());
             }
         }
 
-        // Update comments in bulk and broadcast updates
-        for (Map.Entry<UUID, Long> entry : commentLikeCounts.entrySet()) {
-            UUID commentId = entry.getKey();
-            Long countChange = entry.getValue();
-            
-            // Get current upvotes from database
-            Comment comment = commentRepository.findById(commentId).orElse(null);
-            if (comment != null) {
-                int newUpvotes = comment.getUpvotes() + countChange.intValue();
-                commentRepository.updateUpvotes(commentId, newUpvotes);
-                
-                // Sync the updated count back to Redis to ensure consistency
-                redisCommentLikeService.syncLikeCount(commentId, (long) newUpvotes);
-                
-                // Broadcast the update via WebSocket
-                webSocketCommentLikeService.broadcastLikeUpdate(commentId);
-            }
-        }
+        latestCounts.keySet().forEach(webSocketCommentLikeService::broadcastLikeUpdate);
     }
 
-    @Scheduled(fixedRate = 300000) 
-    @Transactional
-    public void syncLikesWithDatabase() {
-        List<Comment> comments = commentRepository.findAll();
-        for (Comment comment : comments) {
-            redisCommentLikeService.syncLikeCount(comment.getCommentId(), (long) comment.getUpvotes());
+    // Cached count, or the database count plus unflushed likes when Redis does not have it
+    public long getLikeCount(UUID commentId) {
+        Long cached = redisCommentLikeService.getLikeCount(commentId);
+        if (cached != null) {
+            return cached;
         }
+        likeCountReconciler.markCommentDirty(commentId);
+        return storedLikeCount(commentId);
+    }
+
+    private long storedLikeCount(UUID commentId) {
+        return likeWriteBehindBuffer.readConsistently(() -> commentRepository.findUpvotesByCommentIdIn(List.of(commentId))
+                .stream()
+                .findFirst()
+                .map(row -> row.getUpvotes() + likeWriteBehindBuffer.pendingCommentDelta(commentId))
+                .orElse(0L));
     }
 } 
\ No newline at end of file
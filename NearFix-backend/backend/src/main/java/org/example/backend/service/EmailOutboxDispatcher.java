@@ -0,0 +1,221 @@
+package org.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.example.backend.entity.OutboxEmail;
+import org.example.backend.entity.OutboxEmailStatus;
+import org.example.backend.repository.OutboxEmailRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Delivers the emails EmailService writes to the outbox. Each round claims a batch of
+ * due emails with SKIP LOCKED, so several instances can drain the outbox together, and
+ * pushes them one lease into the future: if the instance dies while sending, they come
+ * due again. The batch is split between a fixed number of workers and every worker
+ * sends its share over one SMTP connection. Sent emails are deleted; failed ones are
+ * retried with exponential backoff and end DEAD after the last attempt, or at once when
+ * the message cannot be built. DEAD emails lose their body and are purged after the
+ * retention period.
+ */
+@Component
+public class EmailOutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final String fromEmail;
+    private final int batchSize;
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retryBase;
+    private final Duration retryMax;
+    private final Duration deadRetention;
+    private final ExecutorService sendExecutor;
+
+    private record Failure(OutboxEmail email, Exception error, boolean permanent) {
+    }
+
+    public EmailOutboxDispatcher(OutboxEmailRepository outboxEmailRepository,
+                                 JavaMailSender mailSender,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${spring.mail.username}") String fromEmail,
+                                 @Value("${emails.outbox.batch-size:50}") int batchSize,
+                                 @Value("${emails.outbox.workers:4}") int workers,
+                                 @Value("${emails.outbox.max-attempts:8}") int maxAttempts,
+                                 @Value("${emails.outbox.lease-seconds:300}") long leaseSeconds,
+                                 @Value("${emails.outbox.retry-base-seconds:30}") long retryBaseSeconds,
+                                 @Value("${emails.outbox.retry-max-seconds:3600}") long retryMaxSeconds,
+                                 @Value("${emails.outbox.dead-retention-days:30}") long deadRetentionDays) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.fromEmail = fromEmail;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retryBase = Duration.ofSeconds(retryBaseSeconds);
+        this.retryMax = Duration.ofSeconds(retryMaxSeconds);
+        this.deadRetention = Duration.ofDays(deadRetentionDays);
+        this.sendExecutor = Executors.newFixedThreadPool(workers);
+    }
+
+    @Scheduled(fixedDelayString = "${emails.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        try {
+            List<OutboxEmail> batch;
+            do {
+                batch = claim();
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            System.err.println("Failed to dispatch outbox emails: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${emails.outbox.purge-interval-ms:3600000}")
+    public void purgeDead() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minus(deadRetention);
+            Integer purged = transactionTemplate.execute(status ->
+                    outboxEmailRepository.deleteByStatusCreatedBefore(OutboxEmailStatus.DEAD, before));
+            if (purged != null && purged > 0) {
+                System.out.println("Purged " + purged + " dead outbox emails");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to purge dead outbox emails: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
+
+    private List<OutboxEmail> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEmail> due = outboxEmailRepository.findDueForUpdate(OutboxEmailStatus.PENDING, now, Limit.of(batchSize));
+            for (OutboxEmail email : due) {
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plus(lease));
+            }
+            return outboxEmailRepository.saveAll(due);
+        });
+    }
+
+    private void deliver(List<OutboxEmail> batch) {
+        int share = (batch.size() + workers - 1) / workers;
+        List<CompletableFuture<List<Failure>>> sends = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += share) {
+            List<OutboxEmail> emails = batch.subList(from, Math.min(from + share, batch.size()));
+            sends.add(CompletableFuture.supplyAsync(() -> send(emails), sendExecutor));
+        }
+
+        List<UUID> sent = new ArrayList<>();
+        List<Failure> failures = new ArrayList<>();
+        for (OutboxEmail email : batch) {
+            sent.add(email.getEmailId());
+        }
+        for (CompletableFuture<List<Failure>> send : sends) {
+            for (Failure failure : send.join()) {
+                sent.remove(failure.email().getEmailId());
+                failures.add(failure);
+            }
+        }
+        record(sent, failures);
+    }
+
+    // One connection for all emails of the worker's share
+    private List<Failure> send(List<OutboxEmail> emails) {
+        List<Failure> failures = new ArrayList<>();
+        Map<MimeMessage, OutboxEmail> messages = new IdentityHashMap<>();
+        for (OutboxEmail email : emails) {
+            try {
+                messages.put(toMessage(email), email);
+            } catch (MessagingException | MailException e) {
+                failures.add(new Failure(email, e, true));
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.values().forEach(email -> failures.add(new Failure(email, e, false)));
+            }
+            e.getFailedMessages().forEach((message, error) ->
+                    failures.add(new Failure(messages.get(message), error, false)));
+        } catch (Exception e) {
+            messages.values().forEach(email -> failures.add(new Failure(email, e, false)));
+        }
+        return failures;
+    }
+
+    private MimeMessage toMessage(OutboxEmail email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+        return message;
+    }
+
+    private void record(List<UUID> sent, List<Failure> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEmail> failed = new ArrayList<>();
+        for (Failure failure : failures) {
+            OutboxEmail email = failure.email();
+            String error = String.valueOf(failure.error().getMessage());
+            email.setLastError(error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH));
+            if (failure.permanent() || email.getAttempts() >= maxAttempts) {
+                email.setStatus(OutboxEmailStatus.DEAD);
+                email.setBody(null);
+                System.err.println("Gave up on email " + email.getEmailId() + " to " + email.getRecipient()
+                        + " after " + email.getAttempts() + " attempts: " + error);
+            } else {
+                email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+            }
+            failed.add(email);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sent.isEmpty()) {
+                outboxEmailRepository.deleteAllByIdInBatch(sent);
+            }
+            outboxEmailRepository.saveAll(failed);
+        });
+    }
+
+    // retryBase, 2x, 4x, ... capped at retryMax
+    private Duration backoff(int attempts) {
+        Duration delay = retryBase.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return delay.compareTo(retryMax) > 0 ? retryMax : delay;
+    }
+}
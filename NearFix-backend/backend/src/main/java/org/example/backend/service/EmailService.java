@@ -1,166 +1,102 @@
 package org.example.backend.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.OutboxEmail;
+import org.example.backend.entity.OutboxEmailStatus;
+import org.example.backend.repository.OutboxEmailRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
+/**
+ * Notification emails. Nothing is sent from here: each email is written to the
+ * outbox in the caller's transaction, so it exists exactly when the change it
+ * reports was committed, and EmailOutboxDispatcher delivers it afterwards.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final OutboxEmailRepository outboxEmailRepository;
 
     @Value("${app.admin.email}")
     private String adminEmail;
 
-    @Async
     public void sendGarageApprovalRequest(String garageName, String ownerName, String ownerEmail) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(adminEmail);
-            helper.setSubject("New Garage Approval Request");
-            helper.setText(String.format(
-                "A new garage approval request has been submitted:\n\n" +
-                "Garage Name: %s\n" +
-                "Owner Name: %s\n" +
-                "Owner Email: %s\n\n" +
-                "Please review and take appropriate action.",
-                garageName, ownerName, ownerEmail
-            ));
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
-        }
+        enqueue(adminEmail, "New Garage Approval Request", String.format(
+            "A new garage approval request has been submitted:\n\n" +
+            "Garage Name: %s\n" +
+            "Owner Name: %s\n" +
+            "Owner Email: %s\n\n" +
+            "Please review and take appropriate action.",
+            garageName, ownerName, ownerEmail
+        ));
     }
     
-    @Async
     public void sendGarageStatusUpdate(String toEmail, String garageName, boolean isApproved, String reason) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Garage Status Update");
-            helper.setText(String.format(
-                "Your garage '%s' has been %s.\n\n" +
-                (reason != null ? "Reason: %s\n\n" : "") +
-                "Thank you for using our service.",
-                garageName,
-                isApproved ? "approved" : "rejected",
-                reason
-            ));
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
-        }
+        enqueue(toEmail, "Garage Status Update", String.format(
+            "Your garage '%s' has been %s.\n\n" +
+            (reason != null ? "Reason: %s\n\n" : "") +
+            "Thank you for using our service.",
+            garageName,
+            isApproved ? "approved" : "rejected",
+            reason
+        ));
     }
 
-    @Async
-    public void sendEmployeeAccountCreated(String toEmail, String employeeName, String tempPassword, String garageName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Employee Account Created - NearFix");
-            helper.setText(String.format(
-                "Hello %s,\n\n" +
-                "Your employee account has been created for garage: %s\n\n" +
-                "Your temporary password is: %s\n\n" +
-                "Please log in and change your password immediately for security reasons.\n\n" +
-                "Best regards,\nNearFix Team",
-                employeeName, garageName, tempPassword
-            ));
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
-        }
+    public void sendEmployeeAccountCreated(String toEmail, String employeeName, String setupLink, String garageName) {
+        enqueue(toEmail, "Employee Account Created - NearFix", String.format(
+            "Hello %s,\n\n" +
+            "Your employee account has been created for garage: %s\n\n" +
+            "Choose your password here: %s\n\n" +
+            "The link can be used once and expires in a few days.\n\n" +
+            "Best regards,\nNearFix Team",
+            employeeName, garageName, setupLink
+        ));
     }
 
-    @Async
     public void sendEmployeeAppointmentAssigned(String employeeEmail, java.time.LocalDate date, String garageName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(employeeEmail);
-            helper.setSubject("New Appointment Assigned - NearFix");
-            helper.setText(String.format(
-                "Hello,\n\n" +
-                "You have been assigned a new appointment at garage: %s\n" +
-                "Date: %s\n\n" +
-                "Please check your dashboard for more details.\n\n" +
-                "Best regards,\nNearFix Team",
-                garageName, date
-            ));
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send appointment assignment email", e);
-        }
+        enqueue(employeeEmail, "New Appointment Assigned - NearFix", String.format(
+            "Hello,\n\n" +
+            "You have been assigned a new appointment at garage: %s\n" +
+            "Date: %s\n\n" +
+            "Please check your dashboard for more details.\n\n" +
+            "Best regards,\nNearFix Team",
+            garageName, date
+        ));
     }
 
-    @Async
     public void sendCustomerAppointmentStatusUpdate(String customerEmail, java.time.LocalDate date, String newStatus) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(customerEmail);
-            helper.setSubject("Appointment Status Update - NearFix");
-            helper.setText(String.format(
-                "Hello,\n\n" +
-                "The status of your appointment on %s has changed to: %s\n\n" +
-                "Please check your dashboard for more details.\n\n" +
-                "Best regards,\nNearFix Team",
-                date, newStatus
-            ));
-
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send appointment status update email", e);
-        }
+        enqueue(customerEmail, "Appointment Status Update - NearFix", String.format(
+            "Hello,\n\n" +
+            "The status of your appointment on %s has changed to: %s\n\n" +
+            "Please check your dashboard for more details.\n\n" +
+            "Best regards,\nNearFix Team",
+            date, newStatus
+        ));
     }
 
-    @Async
     public void sendCustomerNoEmployeesAvailable(String customerEmail, java.time.LocalDate date, String garageName) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setFrom(fromEmail);
-            helper.setTo(customerEmail);
-            helper.setSubject("No Employees Available - NearFix");
-            helper.setText(String.format(
-                "Hello,\n\n" +
-                "Unfortunately, there are no available employees at garage: %s for your appointment on %s.\n" +
-                "Please reschedule your appointment at another service.\n\n" +
-                "We apologize for the inconvenience.\n\n" +
-                "Best regards,\nNearFix Team",
-                garageName, date
-            ));
+        enqueue(customerEmail, "No Employees Available - NearFix", String.format(
+            "Hello,\n\n" +
+            "Unfortunately, there are no available employees at garage: %s for your appointment on %s.\n" +
+            "Please reschedule your appointment at another service.\n\n" +
+            "We apologize for the inconvenience.\n\n" +
+            "Best regards,\nNearFix Team",
+            garageName, date
+        ));
+    }
 
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send no employees available email", e);
-        }
+    private void enqueue(String to, String subject, String body) {
+        OutboxEmail email = new OutboxEmail();
+        email.setRecipient(to);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setStatus(OutboxEmailStatus.PENDING);
+        email.setAttempts(0);
+        email.setCreatedAt(LocalDateTime.now());
+        email.setNextAttemptAt(email.getCreatedAt());
+        outboxEmailRepository.save(email);
     }
 }
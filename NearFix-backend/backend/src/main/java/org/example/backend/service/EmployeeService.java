@@ -3,18 +3,23 @@ package org.example.backend.service;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.employee.EmployeeCreateRequest;
 import org.example.backend.dto.employee.EmployeeResponse;
+import org.example.backend.dto.storage.StoredFile;
 import org.example.backend.dto.user.AddressResponse;
 import org.example.backend.entity.Address;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.Garage;
 import org.example.backend.entity.Role;
 import org.example.backend.entity.User;
 import org.example.backend.exception.employee.EmployeeNotFoundException;
 import org.example.backend.exception.employee.InvalidEmployeeDataException;
+import org.example.backend.exception.garage.AppointmentSlotUnavailableException;
 import org.example.backend.exception.garage.GarageNotFoundException;
 import org.example.backend.exception.user.UserNotFoundException;
 import org.example.backend.repository.AddressRepository;
 import org.example.backend.repository.GarageRepository;
 import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.EmployeeLoad;
+import org.example.backend.security.CustomUserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,11 +29,13 @@ import org.example.backend.entity.Appointment;
 import org.example.backend.entity.AppointmentStatus;
 import org.example.backend.repository.AppointmentRepository;
 import org.example.backend.dto.appointment.AppointmentResponse;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -39,9 +46,14 @@ public class EmployeeService {
     private final AddressRepository addressRepository;
     private final GarageRepository garageRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
     private final S3Service s3Service;
     private final EmailService emailService;
     private final AppointmentRepository appointmentRepository;
+    private final GarageSearchIndex garageSearchIndex;
+    private final AppointmentAssignmentService appointmentAssignmentService;
+    private final AppointmentLoadCounters appointmentLoadCounters;
+    private final PasswordSetupTokens passwordSetupTokens;
 
     @Transactional
     public EmployeeResponse createEmployee(EmployeeCreateRequest request) throws IOException {
@@ -72,43 +84,37 @@ public class EmployeeService {
         address = addressRepository.save(address);
 
         // Upload profile photo if provided
-        String profilePhotoUrl = null;
+        StoredFile profilePhoto = null;
         if (request.getProfilePhoto() != null && !request.getProfilePhoto().isEmpty()) {
-            profilePhotoUrl = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
+            profilePhoto = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
         }
 
-        // Generate a temporary password
-        String tempPassword = generateTemporaryPassword();
-
-        // Log employee credentials
-        System.out.println("New employee created. Email: " + request.getEmail() + ", Temporary Password: " + tempPassword);
-
         // Create user
         User user = new User();
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(tempPassword));
+        // The employee chooses a password through the emailed setup link
+        user.setPassword(passwordEncoder.encode(passwordSetupTokens.unusablePassword()));
+        String setupLink = passwordSetupTokens.issue(user);
         user.setPhoneNumber(request.getPhoneNumber());
         user.setRole(request.getRole());
         user.setAddress(address);
-        user.setProfilePhotoUrl(profilePhotoUrl);
+        if (profilePhoto != null) {
+            user.setProfilePhotoUploadId(profilePhoto.getUploadId());
+            user.setProfilePhotoUploadStatus(FileUploadStatus.PENDING);
+        }
         user.setGarage(garage);
 
         user = userRepository.save(user);
+        garageSearchIndex.refreshEmployees(garage.getGarageId());
 
-        // Send email with temporary password
-        try {
-            emailService.sendEmployeeAccountCreated(
-                request.getEmail(),
-                request.getFirstName() + " " + request.getLastName(),
-                tempPassword,
-                garage.getName()
-            );
-        } catch (Exception e) {
-            // Log the email error but don't fail the employee creation
-            System.err.println("Failed to send employee account email: " + e.getMessage());
-        }
+        emailService.sendEmployeeAccountCreated(
+            request.getEmail(),
+            request.getFirstName() + " " + request.getLastName(),
+            setupLink,
+            garage.getName()
+        );
 
         return mapToEmployeeResponse(user, garage);
     }
@@ -197,19 +203,23 @@ public class EmployeeService {
 
         // Handle profile photo update if provided
         if (request.getProfilePhoto() != null && !request.getProfilePhoto().isEmpty()) {
-            String photoUrl = s3Service.updateProfilePhoto(request.getProfilePhoto(), request.getEmail());
-            employee.setProfilePhotoUrl(photoUrl);
+            StoredFile profilePhoto = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
+            employee.setProfilePhotoUploadId(profilePhoto.getUploadId());
+            employee.setProfilePhotoUploadStatus(FileUploadStatus.PENDING);
         }
 
         // Update employee data
+        userDetailsService.evict(employee.getEmail());
         employee.setFirstName(request.getFirstName());
         employee.setLastName(request.getLastName());
         employee.setEmail(request.getEmail());
         employee.setPhoneNumber(request.getPhoneNumber());
+        UUID previousGarageId = employee.getGarage() != null ? employee.getGarage().getGarageId() : null;
         employee.setRole(request.getRole());
         employee.setGarage(garage);
 
         employee = userRepository.save(employee);
+        garageSearchIndex.refreshEmployees(previousGarageId, garage.getGarageId());
 
         return mapToEmployeeResponse(employee, garage);
     }
@@ -224,11 +234,15 @@ public class EmployeeService {
         }
 
         // Delete profile photo if exists
-        if (employee.getProfilePhotoUrl() != null) {
-            s3Service.deleteProfilePhoto(employee.getEmail());
+        if (employee.getProfilePhotoKey() != null) {
+            s3Service.deleteProfilePhoto(employee.getProfilePhotoKey());
         }
 
         userRepository.delete(employee);
+        userDetailsService.evict(employee.getEmail());
+        if (employee.getGarage() != null) {
+            garageSearchIndex.refreshEmployees(employee.getGarage().getGarageId());
+        }
     }
 
     @Transactional
@@ -265,43 +279,37 @@ public class EmployeeService {
         address = addressRepository.save(address);
 
         // Upload profile photo if provided
-        String profilePhotoUrl = null;
+        StoredFile profilePhoto = null;
         if (request.getProfilePhoto() != null && !request.getProfilePhoto().isEmpty()) {
-            profilePhotoUrl = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
+            profilePhoto = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
         }
 
-        // Generate a temporary password
-        String tempPassword = generateTemporaryPassword();
-
-        // Log employee credentials
-        System.out.println("New employee created by garage owner. Email: " + request.getEmail() + ", Temporary Password: " + tempPassword);
-
         // Create user
         User user = new User();
         user.setFirstName(request.getFirstName());
         user.setLastName(request.getLastName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(tempPassword));
+        // The employee chooses a password through the emailed setup link
+        user.setPassword(passwordEncoder.encode(passwordSetupTokens.unusablePassword()));
+        String setupLink = passwordSetupTokens.issue(user);
         user.setPhoneNumber(request.getPhoneNumber());
         user.setRole(request.getRole());
         user.setAddress(address);
-        user.setProfilePhotoUrl(profilePhotoUrl);
+        if (profilePhoto != null) {
+            user.setProfilePhotoUploadId(profilePhoto.getUploadId());
+            user.setProfilePhotoUploadStatus(FileUploadStatus.PENDING);
+        }
         user.setGarage(garage);
 
         user = userRepository.save(user);
+        garageSearchIndex.refreshEmployees(garage.getGarageId());
 
-        // Send email with temporary password
-        try {
-            emailService.sendEmployeeAccountCreated(
-                request.getEmail(),
-                request.getFirstName() + " " + request.getLastName(),
-                tempPassword,
-                garage.getName()
-            );
-        } catch (Exception e) {
-            // Log the email error but don't fail the employee creation
-            System.err.println("Failed to send employee account email: " + e.getMessage());
-        }
+        emailService.sendEmployeeAccountCreated(
+            request.getEmail(),
+            request.getFirstName() + " " + request.getLastName(),
+            setupLink,
+            garage.getName()
+        );
 
         return mapToEmployeeResponse(user, garage);
     }
@@ -414,19 +422,23 @@ public class EmployeeService {
 
         // Handle profile photo update if provided
         if (request.getProfilePhoto() != null && !request.getProfilePhoto().isEmpty()) {
-            String photoUrl = s3Service.updateProfilePhoto(request.getProfilePhoto(), request.getEmail());
-            employee.setProfilePhotoUrl(photoUrl);
+            StoredFile profilePhoto = s3Service.uploadProfilePhoto(request.getProfilePhoto(), request.getEmail());
+            employee.setProfilePhotoUploadId(profilePhoto.getUploadId());
+            employee.setProfilePhotoUploadStatus(FileUploadStatus.PENDING);
         }
 
         // Update employee data
+        userDetailsService.evict(employee.getEmail());
         employee.setFirstName(request.getFirstName());
         employee.setLastName(request.getLastName());
         employee.setEmail(request.getEmail());
         employee.setPhoneNumber(request.getPhoneNumber());
+        UUID previousGarageId = employee.getGarage() != null ? employee.getGarage().getGarageId() : null;
         employee.setRole(request.getRole());
         employee.setGarage(newGarage);
 
         employee = userRepository.save(employee);
+        garageSearchIndex.refreshEmployees(previousGarageId, newGarage.getGarageId());
 
         return mapToEmployeeResponse(employee, newGarage);
     }
@@ -452,11 +464,15 @@ public class EmployeeService {
         }
 
         // Delete profile photo if exists
-        if (employee.getProfilePhotoUrl() != null) {
-            s3Service.deleteProfilePhoto(employee.getEmail());
+        if (employee.getProfilePhotoKey() != null) {
+            s3Service.deleteProfilePhoto(employee.getProfilePhotoKey());
         }
 
         userRepository.delete(employee);
+        userDetailsService.evict(employee.getEmail());
+        if (employee.getGarage() != null) {
+            garageSearchIndex.refreshEmployees(employee.getGarage().getGarageId());
+        }
     }
 
     @Transactional
@@ -466,87 +482,58 @@ public class EmployeeService {
         if (!appointment.getEmployee().getEmail().equals(employeeEmail)) {
             throw new RuntimeException("You are not authorized to update this appointment");
         }
+        UUID previousEmployeeId = appointment.getEmployee().getUserId();
+        boolean wasActive = appointment.getStatus() != AppointmentStatus.CANCELLED;
         // Dacă statusul este REFUZAT, încercăm re-asignarea
         if (request.getStatus() == AppointmentStatus.CANCELLED) { // presupunem că REFUZAT = CANCELLED
-            // Caută angajați compatibili (rol + garaj), excludând pe cel care a refuzat
-            Role areaRole = appointment.getEmployee().getRole();
-            List<User> employees = userRepository.findEmployeesByGarageAndRoles(
-                List.of(areaRole), appointment.getGarage().getGarageId()
+            // Caută angajatul compatibil (rol + garaj) cel mai puțin încărcat, excludând pe cel care a refuzat
+            Optional<EmployeeLoad> candidate = appointmentAssignmentService.reserveEmployee(
+                appointment.getGarage().getGarageId(),
+                appointment.getEmployee().getRole(),
+                appointment.getSelectedDate(),
+                appointment.getEmployee().getUserId()
             );
-            // Exclude angajatul curent
-            employees = employees.stream()
-                .filter(e -> !e.getUserId().equals(appointment.getEmployee().getUserId()))
-                .collect(java.util.stream.Collectors.toList());
-            if (!employees.isEmpty()) {
-                // Selectează angajatul cu cele mai puține programări în acea zi
-                User selectedEmployee = null;
-                long minAppointments = Long.MAX_VALUE;
-                List<User> minEmployees = new java.util.ArrayList<>();
-                for (User employee : employees) {
-                    long count = appointmentRepository.countByEmployeeAndDate(employee.getUserId(), appointment.getSelectedDate());
-                    if (count < minAppointments) {
-                        minAppointments = count;
-                        minEmployees.clear();
-                        minEmployees.add(employee);
-                    } else if (count == minAppointments) {
-                        minEmployees.add(employee);
-                    }
-                }
-                if (minEmployees.size() == 1) {
-                    selectedEmployee = minEmployees.get(0);
-                } else {
-                    // Tie-breaker: cele mai puține programări în săptămână
-                    java.time.LocalDate date = appointment.getSelectedDate();
-                    java.time.DayOfWeek dow = date.getDayOfWeek();
-                    java.time.LocalDate weekStart = date.minusDays(dow.getValue() - 1);
-                    java.time.LocalDate weekEnd = weekStart.plusDays(6);
-                    // Refactor: găsește angajatul cu cele mai puține programări în săptămână fără a modifica variabile din lambda
-                    User minWeekEmployee = null;
-                    long minWeek = Long.MAX_VALUE;
-                    for (User employee : minEmployees) {
-                        long weekCount = appointmentRepository.countByEmployeeAndWeek(employee.getUserId(), weekStart, weekEnd);
-                        if (weekCount < minWeek) {
-                            minWeek = weekCount;
-                            minWeekEmployee = employee;
-                        }
-                    }
-                    selectedEmployee = minWeekEmployee;
-                }
+            if (candidate.isPresent()) {
+                EmployeeLoad selectedEmployee = candidate.get();
                 // Reasignează appointment-ul
-                appointment.setEmployee(selectedEmployee);
+                appointment.setEmployee(userRepository.getReferenceById(selectedEmployee.getEmployeeId()));
                 appointment.setStatus(AppointmentStatus.PENDING);
-                Appointment savedAppointment = appointmentRepository.save(appointment);
-                // Notifică noul angajat
+                appointment.setDailySlot(selectedEmployee.nextDailySlot());
+                Appointment savedAppointment;
                 try {
-                    emailService.sendEmployeeAppointmentAssigned(selectedEmployee.getEmail(), savedAppointment.getSelectedDate(), savedAppointment.getGarage().getName());
-                } catch (Exception e) {
-                    System.err.println("Failed to send appointment notification: " + e.getMessage());
+                    savedAppointment = appointmentRepository.saveAndFlush(appointment);
+                } catch (DataIntegrityViolationException e) {
+                    throw new AppointmentSlotUnavailableException("The selected date was just booked, please try again");
+                }
+                if (wasActive) {
+                    appointmentLoadCounters.released(previousEmployeeId, savedAppointment.getSelectedDate());
                 }
+                appointmentLoadCounters.booked(selectedEmployee.getEmployeeId(), savedAppointment.getSelectedDate(), savedAppointment.getDailySlot());
+                // Notifică noul angajat
+                emailService.sendEmployeeAppointmentAssigned(selectedEmployee.getEmail(), savedAppointment.getSelectedDate(), savedAppointment.getGarage().getName());
                 return savedAppointment;
             } else {
                 // Nu există angajați disponibili, notifică clientul
                 String customerEmail = appointment.getVehicle().getUser().getEmail();
-                try {
-                    emailService.sendCustomerNoEmployeesAvailable(customerEmail, appointment.getSelectedDate(), appointment.getGarage().getName());
-                } catch (Exception e) {
-                    System.err.println("Failed to send customer notification: " + e.getMessage());
-                }
+                emailService.sendCustomerNoEmployeesAvailable(customerEmail, appointment.getSelectedDate(), appointment.getGarage().getName());
                 // Appointment rămâne cu status CANCELLED
                 appointment.setStatus(AppointmentStatus.CANCELLED);
                 Appointment cancelledAppointment = appointmentRepository.save(appointment);
+                if (wasActive) {
+                    appointmentLoadCounters.released(previousEmployeeId, cancelledAppointment.getSelectedDate());
+                }
                 return cancelledAppointment;
             }
         } else {
             // Status normal (CONFIRMED, IN_PROGRESS, COMPLETED etc.)
             appointment.setStatus(request.getStatus());
             Appointment updatedAppointment = appointmentRepository.save(appointment);
+            if (!wasActive) {
+                appointmentLoadCounters.booked(previousEmployeeId, updatedAppointment.getSelectedDate(), null);
+            }
             // Notifică clientul (vehicle owner)
             String customerEmail = updatedAppointment.getVehicle().getUser().getEmail();
-            try {
-                emailService.sendCustomerAppointmentStatusUpdate(customerEmail, updatedAppointment.getSelectedDate(), updatedAppointment.getStatus().name());
-            } catch (Exception e) {
-                System.err.println("Failed to send customer notification: " + e.getMessage());
-            }
+            emailService.sendCustomerAppointmentStatusUpdate(customerEmail, updatedAppointment.getSelectedDate(), updatedAppointment.getStatus().name());
             return updatedAppointment;
         }
     }
@@ -602,16 +589,6 @@ public class EmployeeService {
         return role != Role.ADMIN && role != Role.GARAGE_OWNER && role != Role.CUSTOMER;
     }
 
-    private String generateTemporaryPassword() {
-        // Generate a random 8-character password
-        String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
-        StringBuilder password = new StringBuilder();
-        for (int i = 0; i < 8; i++) {
-            password.append(chars.charAt((int) (Math.random() * chars.length())));
-        }
-        return password.toString();
-    }
-
     private EmployeeResponse mapToEmployeeResponse(User employee, Garage garage) {
         return EmployeeResponse.builder()
                 .userId(employee.getUserId())
@@ -619,7 +596,8 @@ public class EmployeeService {
                 .lastName(employee.getLastName())
                 .email(employee.getEmail())
                 .phoneNumber(employee.getPhoneNumber())
-                .profilePhotoUrl(employee.getProfilePhotoUrl())
+                .profilePhotoUrl(s3Service.getProfilePhotoUrl(employee.getProfilePhotoKey()))
+                .profilePhotoUploadStatus(employee.getProfilePhotoUploadStatus())
                 .role(employee.getRole())
                 .address(AddressResponse.builder()
                         .addressId(employee.getAddress().getAddressId())
@@ -645,7 +623,7 @@ public class EmployeeService {
         dto.setStatus(appointment.getStatus().name());
         dto.setDetails(appointment.getDetails());
         dto.setSelectedDate(appointment.getSelectedDate());
-        dto.setGaragePhotoUrl(appointment.getGarage().getPhotoUrl());
+        dto.setGaragePhotoUrl(s3Service.getGaragePhotoUrl(appointment.getGarage().getPhotoKey()));
         dto.setGarageName(appointment.getGarage().getName());
         User employee = appointment.getEmployee();
         dto.setEmployeeName(employee.getFirstName() + " " + employee.getLastName());
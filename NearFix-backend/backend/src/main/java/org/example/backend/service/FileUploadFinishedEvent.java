@@ -0,0 +1,10 @@
+package org.example.backend.service;
+
+import org.example.backend.entity.FileUpload;
+
+/**
+ * Published by S3UploadPipeline when an upload ends COMPLETED or FAILED, inside the
+ * transaction that records it, so listeners update the owning rows atomically with it.
+ */
+public record FileUploadFinishedEvent(FileUpload upload) {
+}
@@ -0,0 +1,121 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.FileUpload;
+import org.example.backend.entity.FileUploadStatus;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.User;
+import org.example.backend.entity.Vehicle;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.VehicleRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Keeps the rows that own an upload (profile photos, vehicle photos, garage photos and
+ * documents) in step with S3UploadPipeline. Runs in the transaction that records the
+ * outcome. A row only switches to the new file once its upload has COMPLETED, and the
+ * file it replaces, thumbnails included, is deleted after that commits; a FAILED upload
+ * leaves the previous file in place. Rows that moved on to a newer upload are left alone,
+ * and a completed file nobody claims any more is deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class FileUploadOwners {
+    private final UserRepository userRepository;
+    private final VehicleRepository vehicleRepository;
+    private final GarageRepository garageRepository;
+    private final GarageResponseCache garageResponseCache;
+    private final S3Service s3Service;
+
+    @EventListener
+    public void uploadFinished(FileUploadFinishedEvent event) {
+        FileUpload upload = event.upload();
+        boolean completed = upload.getStatus() == FileUploadStatus.COMPLETED;
+        boolean owned = false;
+
+        Optional<User> user = userRepository.findByProfilePhotoUploadId(upload.getUploadId());
+        if (user.isPresent()) {
+            owned = true;
+            user.get().setProfilePhotoUploadStatus(upload.getStatus());
+            if (completed) {
+                deleteReplaced(upload, user.get().getProfilePhotoKey());
+                user.get().setProfilePhotoKey(upload.getObjectKey());
+                user.get().setProfilePhotoContentType(upload.getContentType());
+                user.get().setProfilePhotoThumbnailSizes(upload.getThumbnailSizes());
+            }
+            userRepository.save(user.get());
+        }
+
+        Optional<Vehicle> vehicle = vehicleRepository.findByPhotoUploadId(upload.getUploadId());
+        if (vehicle.isPresent()) {
+            owned = true;
+            vehicle.get().setPhotoUploadStatus(upload.getStatus());
+            if (completed) {
+                deleteReplaced(upload, vehicle.get().getPhotoKey());
+                vehicle.get().setPhotoKey(upload.getObjectKey());
+                vehicle.get().setPhotoContentType(upload.getContentType());
+                vehicle.get().setPhotoThumbnailSizes(upload.getThumbnailSizes());
+            }
+            vehicleRepository.save(vehicle.get());
+        }
+
+        Optional<Garage> garage = garageRepository.findByPhotoUploadId(upload.getUploadId());
+        if (garage.isPresent()) {
+            owned = true;
+            garage.get().setPhotoUploadStatus(upload.getStatus());
+            if (completed) {
+                deleteReplaced(upload, garage.get().getPhotoKey());
+                garage.get().setPhotoKey(upload.getObjectKey());
+                garage.get().setPhotoContentType(upload.getContentType());
+                garage.get().setPhotoThumbnailSizes(upload.getThumbnailSizes());
+            }
+            garageRepository.save(garage.get());
+            garageResponseCache.evict(garage.get().getGarageId());
+        }
+
+        Optional<Garage> documentGarage = garageRepository.findByDocumentUploadId(upload.getUploadId());
+        if (documentGarage.isPresent()) {
+            owned = true;
+            documentGarage.get().setDocumentUploadStatus(upload.getStatus());
+            if (completed) {
+                deleteReplaced(upload, documentGarage.get().getDocumentKey());
+                documentGarage.get().setDocumentKey(upload.getObjectKey());
+            }
+            garageRepository.save(documentGarage.get());
+            garageResponseCache.evict(documentGarage.get().getGarageId());
+        }
+
+        // Owner deleted, or a newer upload took its place; keys are reused, so only if no row points at it
+        if (completed && !owned && !isReferenced(upload.getObjectKey())) {
+            deleteAfterCommit(upload.getBucket(), upload.getObjectKey());
+        }
+    }
+
+    // The same key was simply overwritten by the upload
+    private void deleteReplaced(FileUpload upload, String replacedKey) {
+        if (replacedKey != null && !replacedKey.equals(upload.getObjectKey())) {
+            deleteAfterCommit(upload.getBucket(), replacedKey);
+        }
+    }
+
+    private boolean isReferenced(String key) {
+        return userRepository.existsByProfilePhotoKey(key)
+                || vehicleRepository.existsByPhotoKey(key)
+                || garageRepository.existsByPhotoKeyOrDocumentKey(key, key);
+    }
+
+    // S3 problems must not undo the recorded outcome
+    private void deleteAfterCommit(String bucket, String key) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                s3Service.deleteUploadedFile(bucket, key);
+            } catch (Exception e) {
+                System.err.println("Failed to delete replaced upload: " + e.getMessage());
+            }
+        });
+    }
+}
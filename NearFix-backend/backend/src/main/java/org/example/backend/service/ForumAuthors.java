@@ -0,0 +1,68 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.User;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.AuthorView;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Author names and emails for post and comment responses. Authors are lazy on
+ * posts and comments, so a page resolves all of its authors with one projection
+ * query instead of loading a full User (address, garage, ...) per row.
+ */
+@Component
+@RequiredArgsConstructor
+public class ForumAuthors {
+    private final UserRepository userRepository;
+
+    private record LoadedAuthor(User user) implements AuthorView {
+        @Override
+        public UUID getUserId() {
+            return user.getUserId();
+        }
+
+        @Override
+        public String getFirstName() {
+            return user.getFirstName();
+        }
+
+        @Override
+        public String getLastName() {
+            return user.getLastName();
+        }
+
+        @Override
+        public String getEmail() {
+            return user.getEmail();
+        }
+    }
+
+    // Keyed by user id; authors already loaded in the session are used as they are
+    public Map<UUID, AuthorView> resolve(Collection<User> users) {
+        Map<UUID, AuthorView> authors = new HashMap<>();
+        Set<UUID> missing = new HashSet<>();
+        for (User user : users) {
+            // Reading the id of a lazy reference does not load it
+            if (Hibernate.isInitialized(user)) {
+                authors.put(user.getUserId(), new LoadedAuthor(user));
+            } else {
+                missing.add(user.getUserId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (AuthorView author : userRepository.findAuthorsByUserIdIn(missing)) {
+                authors.put(author.getUserId(), author);
+            }
+        }
+        return authors;
+    }
+}
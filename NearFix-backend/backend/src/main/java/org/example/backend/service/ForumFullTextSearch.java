@@ -0,0 +1,44 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Sets up the tsvector search columns and GIN indexes on posts and comments
+ * (see scripts/forum_search.sql) and tells the forum services whether they can
+ * be used. Other databases, such as H2 in tests, and a failed setup keep the
+ * LIKE based search.
+ */
+@Component
+@RequiredArgsConstructor
+public class ForumFullTextSearch {
+    private static final String SCRIPT = "scripts/forum_search.sql";
+
+    private final DataSource dataSource;
+
+    private volatile boolean available;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void setUp() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)).populate(connection);
+            available = true;
+        } catch (Exception e) {
+            System.err.println("Full-text search unavailable, falling back to LIKE search: " + e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.backend.service;
+
+import org.example.backend.repository.projection.GarageOpeningSlot;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Weekly opening hours of a garage as a 7 x 96 quarter-hour bitmap
+ * (day 0 = Monday, matching GarageSchedule.dayOfWeek).
+ * Partial quarters are treated as closed, so a garage is never reported open early.
+ */
+public final class GarageOpeningHours {
+    private static final int SLOTS_PER_DAY = 96;
+    private static final int MINUTES_PER_SLOT = 15;
+
+    private final BitSet slots;
+
+    private GarageOpeningHours(BitSet slots) {
+        this.slots = slots;
+    }
+
+    public static GarageOpeningHours of(List<? extends GarageOpeningSlot> schedule) {
+        BitSet slots = new BitSet(7 * SLOTS_PER_DAY);
+        for (GarageOpeningSlot day : schedule) {
+            if (Boolean.TRUE.equals(day.getIsClosed()) || day.getDayOfWeek() == null
+                    || day.getOpeningTime() == null || day.getClosingTime() == null) {
+                continue;
+            }
+            int dayStart = day.getDayOfWeek() * SLOTS_PER_DAY;
+            int open = ceilSlot(day.getOpeningTime());
+            // 00:00 as closing time means the garage stays open until midnight
+            int close = day.getClosingTime().equals(LocalTime.MIDNIGHT)
+                    ? SLOTS_PER_DAY
+                    : floorSlot(day.getClosingTime());
+            if (close > open) {
+                slots.set(dayStart + open, dayStart + close);
+            } else if (close < open) {
+                // Overnight opening spills into the morning of the next day
+                slots.set(dayStart + open, dayStart + SLOTS_PER_DAY);
+                int nextDayStart = ((day.getDayOfWeek() + 1) % 7) * SLOTS_PER_DAY;
+                slots.set(nextDayStart, nextDayStart + close);
+            }
+        }
+        return new GarageOpeningHours(slots);
+    }
+
+    public boolean isOpenAt(LocalDateTime time) {
+        int day = time.getDayOfWeek().getValue() - 1;
+        return slots.get(day * SLOTS_PER_DAY + floorSlot(time.toLocalTime()));
+    }
+
+    private static int floorSlot(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / MINUTES_PER_SLOT;
+    }
+
+    private static int ceilSlot(LocalTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute() + (time.getSecond() > 0 || time.getNano() > 0 ? 1 : 0);
+        return (minutes + MINUTES_PER_SLOT - 1) / MINUTES_PER_SLOT;
+    }
+}
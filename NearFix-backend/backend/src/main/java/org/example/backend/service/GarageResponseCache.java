@@ -0,0 +1,158 @@
+package org.example.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.backend.dto.garage.GarageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of garage details: a small in-process Caffeine tier in front
+ * of a shared Redis tier, so repeated views of a garage skip the database. Writes
+ * evict both tiers once the transaction commits and tell the other instances to
+ * drop their local copy over Redis pub/sub. Both tiers also expire, which bounds
+ * staleness for changes that do not evict (e.g. the owner editing their profile).
+ * Every eviction bumps a per-garage version in Redis, and a loaded response is only
+ * written back if the version it was loaded under is still current, so an instance
+ * that read the database before another one committed cannot re-cache the old copy.
+ * Hits and misses are published as cache.gets for garageResponses.local and
+ * garageResponses.redis.
+ */
+@Component
+public class GarageResponseCache {
+    private static final String KEY_PREFIX = "garage:response:";
+    private static final String VERSION_PREFIX = "garage:response:version:";
+    private static final String EVICT_CHANNEL = "garage:response:evict";
+    // Outlives any load in progress; a missing version reads as 0, which only ever skips a write
+    private static final Duration VERSION_TTL = Duration.ofDays(1);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisScript<Long> cacheSetIfVersionScript;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+    private final Cache<UUID, GarageResponse> local;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public GarageResponseCache(StringRedisTemplate stringRedisTemplate,
+                               RedisScript<Long> cacheSetIfVersionScript,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               RedisMessageListenerContainer listenerContainer,
+                               @Value("${garages.cache.local-ttl-seconds:60}") long localTtlSeconds,
+                               @Value("${garages.cache.local-max-size:10000}") long localMaxSize,
+                               @Value("${garages.cache.redis-ttl-seconds:600}") long redisTtlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cacheSetIfVersionScript = cacheSetIfVersionScript;
+        this.objectMapper = objectMapper;
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "garageResponses.local");
+        this.redisHits = Counter.builder("cache.gets")
+                .tag("cache", "garageResponses.redis")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.redisMisses = Counter.builder("cache.gets")
+                .tag("cache", "garageResponses.redis")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        listenerContainer.addMessageListener(
+                (message, pattern) -> invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    /**
+     * Cached response for the garage, loaded with {@code loader} when neither tier has it.
+     * Exceptions from the loader (e.g. garage not found) are passed on and nothing is cached.
+     */
+    public GarageResponse get(UUID garageId, Supplier<GarageResponse> loader) {
+        return local.get(garageId, id -> {
+            GarageResponse cached = readRedis(id);
+            if (cached != null) {
+                redisHits.increment();
+                return cached;
+            }
+            redisMisses.increment();
+            String version = readVersion(id);
+            GarageResponse loaded = loader.get();
+            if (version != null) {
+                writeRedis(id, version, loaded);
+            }
+            return loaded;
+        });
+    }
+
+    public void evict(UUID garageId) {
+        TransactionCallbacks.afterCommit(() -> {
+            // Waits for a load of the same garage in progress, so it cannot put back an old copy
+            local.invalidate(garageId);
+            try {
+                // Bumped before the delete, so loads that started earlier no longer write back
+                stringRedisTemplate.opsForValue().increment(VERSION_PREFIX + garageId);
+                stringRedisTemplate.expire(VERSION_PREFIX + garageId, VERSION_TTL);
+                stringRedisTemplate.delete(KEY_PREFIX + garageId);
+                stringRedisTemplate.convertAndSend(EVICT_CHANNEL, garageId.toString());
+            } catch (Exception e) {
+                System.err.println("Failed to evict cached garage " + garageId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void invalidateLocal(String garageId) {
+        try {
+            local.invalidate(UUID.fromString(garageId));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid garage cache eviction: " + garageId);
+        }
+    }
+
+    // Redis problems degrade to a database read instead of failing the request
+    private GarageResponse readRedis(UUID garageId) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(KEY_PREFIX + garageId);
+            return json == null ? null : objectMapper.readValue(json, GarageResponse.class);
+        } catch (Exception e) {
+            System.err.println("Failed to read cached garage " + garageId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Null when Redis cannot be read, in which case the loaded response is not written back
+    private String readVersion(UUID garageId) {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(VERSION_PREFIX + garageId);
+            return version == null ? "0" : version;
+        } catch (Exception e) {
+            System.err.println("Failed to read cache version of garage " + garageId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(UUID garageId, String version, GarageResponse response) {
+        try {
+            stringRedisTemplate.execute(cacheSetIfVersionScript,
+                    List.of(KEY_PREFIX + garageId, VERSION_PREFIX + garageId),
+                    version, objectMapper.writeValueAsString(response), Long.toString(redisTtl.toSeconds()));
+        } catch (Exception e) {
+            System.err.println("Failed to cache garage " + garageId + ": " + e.getMessage());
+        }
+    }
+}
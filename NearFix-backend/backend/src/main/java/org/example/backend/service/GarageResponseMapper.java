@@ -0,0 +1,97 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.garage.GarageResponse;
+import org.example.backend.dto.garage.GarageScheduleResponse;
+import org.example.backend.dto.user.AddressResponse;
+import org.example.backend.entity.Address;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.GarageSchedule;
+import org.example.backend.entity.User;
+import org.example.backend.repository.GarageScheduleRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Builds GarageResponse objects for a whole list of garages at once.
+ * Schedules are loaded with a single IN query; owners and addresses are expected
+ * to be fetched together with the garages (see the entity graphs in GarageRepository).
+ */
+@Component
+@RequiredArgsConstructor
+public class GarageResponseMapper {
+
+    private final GarageScheduleRepository scheduleRepository;
+    private final S3Service s3Service;
+
+    public GarageResponse toResponse(Garage garage) {
+        return toResponses(List.of(garage)).get(0);
+    }
+
+    public List<GarageResponse> toResponses(Collection<Garage> garages) {
+        if (garages.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> garageIds = garages.stream().map(Garage::getGarageId).collect(Collectors.toList());
+        Map<UUID, List<GarageScheduleResponse>> schedules = scheduleRepository.findByGarage_GarageIdIn(garageIds)
+                .stream()
+                .collect(Collectors.groupingBy(
+                        schedule -> schedule.getGarage().getGarageId(),
+                        Collectors.mapping(this::mapToScheduleResponse, Collectors.toList())
+                ));
+
+        return garages.stream()
+                .map(garage -> mapToGarageResponse(garage, schedules.getOrDefault(garage.getGarageId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private GarageResponse mapToGarageResponse(Garage garage, List<GarageScheduleResponse> schedule) {
+        User owner = garage.getUser();
+        return GarageResponse.builder()
+                .garageId(garage.getGarageId())
+                .name(garage.getName())
+                .userId(owner.getUserId())
+                .ownerName(owner.getFirstName() + " " + owner.getLastName())
+                .ownerEmail(owner.getEmail())
+                .ownerPhoneNumber(owner.getPhoneNumber())
+                .ownerProfilePhotoUrl(s3Service.getProfilePhotoUrl(owner.getProfilePhotoKey()))
+                .address(mapToAddressResponse(garage.getAddress()))
+                .photoUrl(s3Service.getGaragePhotoUrl(garage.getPhotoKey()))
+                .photoThumbnailUrls(s3Service.getGaragePhotoThumbnailUrls(garage.getPhotoKey(), garage.getPhotoThumbnailSizes()))
+                .photoUploadStatus(garage.getPhotoUploadStatus())
+                .documentUrl(s3Service.getGarageDocumentUrl(garage.getDocumentKey()))
+                .documentUploadStatus(garage.getDocumentUploadStatus())
+                .status(garage.getStatus())
+                .rejectionReason(garage.getRejectionReason())
+                .schedule(schedule)
+                .build();
+    }
+
+    private GarageScheduleResponse mapToScheduleResponse(GarageSchedule schedule) {
+        return GarageScheduleResponse.builder()
+                .scheduleId(schedule.getScheduleId())
+                .dayOfWeek(schedule.getDayOfWeek())
+                .openingTime(schedule.getOpeningTime())
+                .closingTime(schedule.getClosingTime())
+                .isClosed(schedule.getIsClosed())
+                .build();
+    }
+
+    private AddressResponse mapToAddressResponse(Address address) {
+        return AddressResponse.builder()
+                .addressId(address.getAddressId())
+                .country(address.getCountry())
+                .city(address.getCity())
+                .street(address.getStreet())
+                .number(address.getNumber())
+                .zipCode(address.getZipCode())
+                .latitude(address.getLatitude())
+                .longitude(address.getLongitude())
+                .build();
+    }
+}
@@ -0,0 +1,409 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.GarageStatus;
+import org.example.backend.entity.Role;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.GarageScheduleRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.GarageLocation;
+import org.example.backend.repository.projection.GarageOpeningSlot;
+import org.example.backend.repository.projection.GarageRole;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory grid index over the coordinates of approved garages.
+ * Searches expand ring by ring around the user's cell and stop as soon as
+ * no unvisited cell can contain a garage closer than the ones already found.
+ * Alongside the coordinates it keeps, per garage, a bitmask of the employee
+ * roles available there and a weekly opening-hours bitmap, so the area and
+ * open-now filters never have to query the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class GarageSearchIndex {
+    // Cell size in degrees, roughly 11 km of latitude
+    private static final double CELL_SIZE = 0.1;
+    private static final int ROWS = (int) Math.round(180 / CELL_SIZE);
+    private static final int COLUMNS = (int) Math.round(360 / CELL_SIZE);
+    private static final double EARTH_RADIUS_KM = 6371;
+
+    private final GarageRepository garageRepository;
+    private final UserRepository userRepository;
+    private final GarageScheduleRepository scheduleRepository;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<UUID>> cells = new ConcurrentHashMap<>();
+    // garageId -> bit (1 << Role.ordinal()) for every role employed at the garage
+    private final Map<UUID, Integer> capabilities = new ConcurrentHashMap<>();
+    private final Map<UUID, GarageOpeningHours> openingHours = new ConcurrentHashMap<>();
+    // Indexed garages per employee role, changed together with entries and capabilities
+    private final AtomicIntegerArray roleCounts = new AtomicIntegerArray(Role.values().length);
+    // Bumped by every incremental change; garageId -> generation of its last change. Both guarded by this
+    private long generation;
+    private final Map<UUID, Long> changedAt = new HashMap<>();
+
+    public record Candidate(UUID garageId, double distance) {
+    }
+
+    private static final Comparator<Candidate> CANDIDATE_ORDER = Comparator
+            .comparingDouble(Candidate::distance)
+            .thenComparing(Candidate::garageId);
+
+    private record Entry(UUID garageId, double latitude, double longitude, long cell) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Safety net for changes made by other instances or outside the services. Garages
+     * changed incrementally after the snapshot queries began keep their indexed state,
+     * which is newer than the snapshot.
+     */
+    @Scheduled(fixedRate = 300000, initialDelay = 300000)
+    public void rebuild() {
+        long snapshot;
+        synchronized (this) {
+            snapshot = generation;
+        }
+        List<GarageLocation> locations = garageRepository.findLocationsByStatus(GarageStatus.APPROVED);
+        Map<UUID, Integer> roleMasks = new HashMap<>();
+        for (GarageRole garageRole : userRepository.findGarageRoles()) {
+            roleMasks.merge(garageRole.getGarageId(), bit(garageRole.getRole()), (a, b) -> a | b);
+        }
+        Map<UUID, List<GarageOpeningSlot>> schedules = scheduleRepository
+                .findOpeningSlotsByGarageStatus(GarageStatus.APPROVED)
+                .stream()
+                .collect(Collectors.groupingBy(GarageOpeningSlot::getGarageId));
+        Set<UUID> current = new HashSet<>();
+        synchronized (this) {
+            Predicate<UUID> stale = garageId -> changedAt.getOrDefault(garageId, Long.MIN_VALUE) > snapshot;
+            roleMasks.forEach((garageId, mask) -> {
+                if (!stale.test(garageId)) {
+                    capabilities.put(garageId, mask);
+                }
+            });
+            capabilities.keySet().removeIf(garageId -> !roleMasks.containsKey(garageId) && !stale.test(garageId));
+            schedules.forEach((garageId, slots) -> {
+                if (!stale.test(garageId)) {
+                    openingHours.put(garageId, GarageOpeningHours.of(slots));
+                }
+            });
+            openingHours.keySet().removeIf(garageId -> !schedules.containsKey(garageId) && !stale.test(garageId));
+            for (GarageLocation location : locations) {
+                if (location.getLatitude() == null || location.getLongitude() == null) {
+                    continue;
+                }
+                current.add(location.getGarageId());
+                if (!stale.test(location.getGarageId())) {
+                    put(location.getGarageId(), location.getLatitude(), location.getLongitude());
+                }
+            }
+            for (UUID garageId : new ArrayList<>(entries.keySet())) {
+                if (!current.contains(garageId) && !stale.test(garageId)) {
+                    delete(garageId);
+                }
+            }
+            for (int i = 0; i < roleCounts.length(); i++) {
+                roleCounts.set(i, 0);
+            }
+            entries.keySet().forEach(garageId -> countRoles(capabilities.getOrDefault(garageId, 0), 1));
+            // Changes the snapshot already reflects no longer need protecting
+            changedAt.values().removeIf(changed -> changed <= snapshot);
+        }
+    }
+
+    /**
+     * Reflects the current state of a garage, including its schedule, in the index
+     * once the surrounding transaction commits. Only approved garages with
+     * coordinates are searchable.
+     */
+    public void update(Garage garage) {
+        UUID garageId = garage.getGarageId();
+        boolean searchable = garage.getStatus() == GarageStatus.APPROVED
+                && garage.getAddress() != null
+                && garage.getAddress().getLatitude() != null
+                && garage.getAddress().getLongitude() != null;
+        if (!searchable) {
+            remove(garageId);
+            return;
+        }
+        double latitude = garage.getAddress().getLatitude();
+        double longitude = garage.getAddress().getLongitude();
+        TransactionCallbacks.afterCommit(() -> {
+            GarageOpeningHours hours = GarageOpeningHours.of(scheduleRepository.findOpeningSlotsByGarageId(garageId));
+            synchronized (this) {
+                changed(garageId);
+                openingHours.put(garageId, hours);
+                put(garageId, latitude, longitude);
+            }
+        });
+    }
+
+    public void remove(UUID garageId) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                changed(garageId);
+                delete(garageId);
+            }
+        });
+    }
+
+    /**
+     * Reloads the employee roles of the given garages once the surrounding
+     * transaction commits. Called whenever an employee is created, moved or deleted.
+     */
+    public void refreshEmployees(UUID... garageIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            for (UUID garageId : garageIds) {
+                if (garageId == null) {
+                    continue;
+                }
+                int mask = 0;
+                for (Role role : userRepository.findRolesByGarage(garageId)) {
+                    mask |= bit(role);
+                }
+                synchronized (this) {
+                    changed(garageId);
+                    Integer previous = mask == 0 ? capabilities.remove(garageId) : capabilities.put(garageId, mask);
+                    if (entries.containsKey(garageId)) {
+                        countRoles(previous == null ? 0 : previous, -1);
+                        countRoles(mask, 1);
+                    }
+                }
+            }
+        });
+    }
+
+    public boolean hasEmployeeWithRole(UUID garageId, Role role) {
+        return (capabilities.getOrDefault(garageId, 0) & bit(role)) != 0;
+    }
+
+    public boolean isOpenAt(UUID garageId, LocalDateTime time) {
+        GarageOpeningHours hours = openingHours.get(garageId);
+        return hours != null && hours.isOpenAt(time);
+    }
+
+    // Constant time, kept up to date by every change to the index
+    public long countWithRole(Role role) {
+        return roleCounts.get(role.ordinal());
+    }
+
+    /**
+     * Returns up to {@code limit} garages accepted by {@code filter}, ordered by distance.
+     */
+    public List<Candidate> findNearest(double latitude, double longitude, int limit, Predicate<UUID> filter) {
+        return findNearest(latitude, longitude, limit, null, filter);
+    }
+
+    /**
+     * Returns up to {@code limit} garages accepted by {@code filter} that come strictly
+     * after {@code after} in (distance, garageId) order, so deep pages can resume from
+     * the last result instead of skipping over everything before it.
+     * Only the best {@code limit} candidates are ever kept, in a bounded max-heap.
+     */
+    public List<Candidate> findNearest(double latitude, double longitude, int limit, Candidate after, Predicate<UUID> filter) {
+        if (limit <= 0 || entries.isEmpty()) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit, CANDIDATE_ORDER.reversed());
+
+        int row = row(latitude);
+        int column = column(longitude);
+        Set<Long> visitedCells = new HashSet<>();
+        int visitedEntries = 0;
+        int total = entries.size();
+
+        for (int ring = 0; ; ring++) {
+            boolean exhaustive = 2 * ring + 1 >= COLUMNS || 8L * ring > cells.size();
+            if (exhaustive) {
+                // Rings are now larger than the set of occupied cells: scan what is left directly
+                for (Map.Entry<Long, Set<UUID>> cell : cells.entrySet()) {
+                    if (visitedCells.add(cell.getKey())) {
+                        collect(cell.getValue(), latitude, longitude, limit, after, filter, best);
+                    }
+                }
+                break;
+            }
+
+            for (long cell : ringCells(row, column, ring)) {
+                if (!visitedCells.add(cell)) {
+                    continue;
+                }
+                Set<UUID> ids = cells.get(cell);
+                if (ids != null) {
+                    visitedEntries += ids.size();
+                    collect(ids, latitude, longitude, limit, after, filter, best);
+                }
+            }
+
+            if (visitedEntries >= total) {
+                break;
+            }
+            // The heap is full and even its worst candidate beats anything outside the visited block
+            if (best.size() >= limit && best.peek().distance() <= distanceToBlockEdge(latitude, longitude, row, column, ring)) {
+                break;
+            }
+        }
+
+        List<Candidate> found = new ArrayList<>(best);
+        found.sort(CANDIDATE_ORDER);
+        return found;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void collect(Set<UUID> ids, double latitude, double longitude, int limit, Candidate after,
+                         Predicate<UUID> filter, PriorityQueue<Candidate> best) {
+        for (UUID garageId : ids) {
+            Entry entry = entries.get(garageId);
+            if (entry == null) {
+                continue;
+            }
+            Candidate candidate = new Candidate(garageId, haversine(latitude, longitude, entry.latitude(), entry.longitude()));
+            if (after != null && CANDIDATE_ORDER.compare(candidate, after) <= 0) {
+                continue;
+            }
+            boolean full = best.size() >= limit;
+            if (full && CANDIDATE_ORDER.compare(candidate, best.peek()) >= 0) {
+                continue;
+            }
+            // The filter may hit several maps, so it only runs for candidates that would make the cut
+            if (!filter.test(garageId)) {
+                continue;
+            }
+            if (full) {
+                best.poll();
+            }
+            best.add(candidate);
+        }
+    }
+
+    // Caller holds the lock
+    private void changed(UUID garageId) {
+        changedAt.put(garageId, ++generation);
+    }
+
+    private void put(UUID garageId, double latitude, double longitude) {
+        long cell = cellKey(row(latitude), column(longitude));
+        Entry previous = entries.put(garageId, new Entry(garageId, latitude, longitude, cell));
+        if (previous == null) {
+            countRoles(capabilities.getOrDefault(garageId, 0), 1);
+        } else if (previous.cell() != cell) {
+            removeFromCell(previous.cell(), garageId);
+        }
+        cells.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(garageId);
+    }
+
+    private void delete(UUID garageId) {
+        openingHours.remove(garageId);
+        Entry previous = entries.remove(garageId);
+        if (previous != null) {
+            removeFromCell(previous.cell(), garageId);
+            countRoles(capabilities.getOrDefault(garageId, 0), -1);
+        }
+    }
+
+    private void countRoles(int mask, int delta) {
+        for (Role role : Role.values()) {
+            if ((mask & bit(role)) != 0) {
+                roleCounts.addAndGet(role.ordinal(), delta);
+            }
+        }
+    }
+
+    private void removeFromCell(long cell, UUID garageId) {
+        cells.computeIfPresent(cell, (key, ids) -> {
+            ids.remove(garageId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private List<Long> ringCells(int row, int column, int ring) {
+        List<Long> result = new ArrayList<>();
+        for (int dr = -ring; dr <= ring; dr++) {
+            int r = row + dr;
+            if (r < 0 || r >= ROWS) {
+                continue;
+            }
+            boolean edgeRow = Math.abs(dr) == ring;
+            for (int dc = -ring; dc <= ring; dc += edgeRow ? 1 : 2 * ring) {
+                result.add(cellKey(r, Math.floorMod(column + dc, COLUMNS)));
+                if (ring == 0) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Lower bound (km) for the distance from the point to anything outside the visited block of cells
+    private double distanceToBlockEdge(double latitude, double longitude, int row, int column, int ring) {
+        double south = (row - ring) * CELL_SIZE - 90;
+        double north = (row + ring + 1) * CELL_SIZE - 90;
+        double west = (column - ring) * CELL_SIZE - 180;
+        double east = (column + ring + 1) * CELL_SIZE - 180;
+
+        double bound = Double.MAX_VALUE;
+        if (north < 90) {
+            bound = Math.min(bound, Math.toRadians(north - latitude));
+        }
+        if (south > -90) {
+            bound = Math.min(bound, Math.toRadians(latitude - south));
+        }
+        double lonReach = Math.min(Math.min(longitude - west, east - longitude), 90);
+        bound = Math.min(bound, Math.asin(Math.sin(Math.toRadians(lonReach)) * Math.cos(Math.toRadians(latitude))));
+        return Math.max(bound, 0) * EARTH_RADIUS_KM;
+    }
+
+    private static int bit(Role role) {
+        return 1 << role.ordinal();
+    }
+
+    private static int row(double latitude) {
+        return Math.min(Math.max((int) Math.floor((latitude + 90) / CELL_SIZE), 0), ROWS - 1);
+    }
+
+    private static int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_SIZE), COLUMNS);
+    }
+
+    private static long cellKey(int row, int column) {
+        return (long) row * COLUMNS + column;
+    }
+
+    // Haversine formula pentru distanta în km
+    static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+}
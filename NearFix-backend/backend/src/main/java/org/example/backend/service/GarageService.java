@@ -3,13 +3,16 @@ package org.example.backend.service;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.garage.GarageRequest;
 import org.example.backend.dto.garage.GarageResponse;
-import org.example.backend.dto.garage.GarageScheduleResponse;
 import org.example.backend.dto.garage.GarageSearchRequest;
+import org.example.backend.dto.pagination.CursorPage;
+import org.example.backend.dto.storage.StoredFile;
 import org.example.backend.entity.Address;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.Garage;
 import org.example.backend.entity.GarageSchedule;
 import org.example.backend.entity.Role;
 import org.example.backend.entity.User;
+import org.example.backend.exception.garage.AppointmentSlotUnavailableException;
 import org.example.backend.exception.garage.InvalidGarageDataException;
 import org.example.backend.exception.garage.GarageNotFoundException;
 import org.example.backend.exception.user.UserNotFoundException;
@@ -17,8 +20,8 @@ import org.example.backend.repository.AddressRepository;
 import org.example.backend.repository.GarageRepository;
 import org.example.backend.repository.GarageScheduleRepository;
 import org.example.backend.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -27,9 +30,13 @@ import org.springframework.web.multipart.MultipartFile;
 
 import org.example.backend.entity.GarageStatus;
 import java.io.IOException;
-import java.time.LocalTime;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.example.backend.dto.appointment.AppointmentCreateRequest;
@@ -38,6 +45,7 @@ import org.example.backend.entity.AppointmentStatus;
 import org.example.backend.entity.Vehicle;
 import org.example.backend.repository.AppointmentRepository;
 import org.example.backend.repository.VehicleRepository;
+import org.example.backend.repository.projection.EmployeeLoad;
 import org.example.backend.dto.appointment.AppointmentResponse;
 
 @Service
@@ -51,6 +59,11 @@ public class GarageService {
     private final EmailService emailService;
     private final AppointmentRepository appointmentRepository;
     private final VehicleRepository vehicleRepository;
+    private final GarageSearchIndex garageSearchIndex;
+    private final GarageResponseCache garageResponseCache;
+    private final GarageResponseMapper garageResponseMapper;
+    private final AppointmentAssignmentService appointmentAssignmentService;
+    private final AppointmentLoadCounters appointmentLoadCounters;
 
     @Transactional
     public GarageResponse createGarage(GarageRequest request, String userEmail) throws IOException {
@@ -78,12 +91,16 @@ public class GarageService {
 
         garage = garageRepository.save(garage); 
 
-        if (request.getPhoto() != null) {
-            garage.setPhotoUrl(s3Service.uploadGaragePhoto(request.getPhoto(), garage.getGarageId()));
+        if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
+            StoredFile photo = s3Service.uploadGaragePhoto(request.getPhoto(), garage.getGarageId());
+            garage.setPhotoUploadId(photo.getUploadId());
+            garage.setPhotoUploadStatus(FileUploadStatus.PENDING);
         }
 
-        if (request.getDocument() != null) {
-            garage.setDocumentUrl(s3Service.uploadGarageDocument(request.getDocument(), garage.getGarageId()));
+        if (request.getDocument() != null && !request.getDocument().isEmpty()) {
+            StoredFile document = s3Service.uploadGarageDocument(request.getDocument(), garage.getGarageId());
+            garage.setDocumentUploadId(document.getUploadId());
+            garage.setDocumentUploadStatus(FileUploadStatus.PENDING);
         }
 
         garage = garageRepository.save(garage); 
@@ -111,33 +128,31 @@ public class GarageService {
             }
         }
 
-        try {
-            emailService.sendGarageApprovalRequest(
-                garage.getName(),
-                user.getFirstName() + " " + user.getLastName(),
-                user.getEmail()
-            );
-        } catch (Exception e) {
-            System.err.println("Failed to send email notification: " + e.getMessage());
-        }
+        emailService.sendGarageApprovalRequest(
+            garage.getName(),
+            user.getFirstName() + " " + user.getLastName(),
+            user.getEmail()
+        );
 
-        return mapToGarageResponse(garage);
+        garageSearchIndex.update(garage);
+        return garageResponseMapper.toResponse(garage);
     }
 
+    @Transactional(readOnly = true)
     public List<GarageResponse> getUserGarages(String userEmail) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + userEmail));
 
-        return garageRepository.findByUser_UserId(user.getUserId())
-                .stream()
-                .map(this::mapToGarageResponse)
-                .collect(Collectors.toList());
+        return garageResponseMapper.toResponses(garageRepository.findByUser_UserId(user.getUserId()));
     }
 
+    // Served from GarageResponseCache; a miss costs one query for the garage with owner and address plus one for the schedule
     public GarageResponse getGarage(UUID garageId) {
-        Garage garage = garageRepository.findById(garageId)
-                .orElseThrow(() -> new GarageNotFoundException(garageId));
-        return mapToGarageResponse(garage);
+        return garageResponseCache.get(garageId, () -> garageRepository.findByGarageIdIn(List.of(garageId))
+                .stream()
+                .findFirst()
+                .map(garageResponseMapper::toResponse)
+                .orElseThrow(() -> new GarageNotFoundException(garageId)));
     }
 
     @Transactional
@@ -169,13 +184,15 @@ public class GarageService {
         garage.setName(request.getName().trim());
 
         if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-            String photoUrl = s3Service.uploadGaragePhoto(request.getPhoto(), garageId);
-            garage.setPhotoUrl(photoUrl);
+            StoredFile photo = s3Service.uploadGaragePhoto(request.getPhoto(), garageId);
+            garage.setPhotoUploadId(photo.getUploadId());
+            garage.setPhotoUploadStatus(FileUploadStatus.PENDING);
         }
 
         if (request.getDocument() != null && !request.getDocument().isEmpty()) {
-            String documentUrl = s3Service.uploadGarageDocument(request.getDocument(), garageId);
-            garage.setDocumentUrl(documentUrl);
+            StoredFile document = s3Service.uploadGarageDocument(request.getDocument(), garageId);
+            garage.setDocumentUploadId(document.getUploadId());
+            garage.setDocumentUploadStatus(FileUploadStatus.PENDING);
         }
 
         if (request.getSchedule() != null) {
@@ -193,7 +210,9 @@ public class GarageService {
         }
 
         garage = garageRepository.save(garage);
-        return mapToGarageResponse(garage);
+        garageSearchIndex.update(garage);
+        garageResponseCache.evict(garageId);
+        return garageResponseMapper.toResponse(garage);
     }
 
     @Transactional
@@ -208,15 +227,12 @@ public class GarageService {
             throw new InvalidGarageDataException("You don't have permission to delete this garage");
         }
 
-        if (garage.getPhotoUrl() != null) {
-            s3Service.deleteGaragePhoto(garageId);
-        }
-
-        if (garage.getDocumentUrl() != null) {
-            s3Service.deleteGarageDocument(garageId);
-        }
+        s3Service.deleteGaragePhoto(garage.getPhotoKey());
+        s3Service.deleteGarageDocument(garage.getDocumentKey());
 
         garageRepository.delete(garage);
+        garageSearchIndex.remove(garageId);
+        garageResponseCache.evict(garageId);
     }
 
     public void deleteGaragePhoto(UUID garageId, String userEmail) {
@@ -230,9 +246,15 @@ public class GarageService {
             throw new InvalidGarageDataException("You don't have permission to modify this garage");
         }
 
-        s3Service.deleteGaragePhoto(garageId);
+        s3Service.deleteGaragePhoto(garage.getPhotoKey());
         garage.setPhotoUrl(null);
+        garage.setPhotoKey(null);
+        garage.setPhotoContentType(null);
+        garage.setPhotoThumbnailSizes(null);
+        garage.setPhotoUploadId(null);
+        garage.setPhotoUploadStatus(null);
         garageRepository.save(garage);
+        garageResponseCache.evict(garageId);
     }
 
     public void deleteGarageDocument(UUID garageId, String userEmail) {
@@ -246,9 +268,13 @@ public class GarageService {
             throw new InvalidGarageDataException("You don't have permission to modify this garage");
         }
 
-        s3Service.deleteGarageDocument(garageId);
+        s3Service.deleteGarageDocument(garage.getDocumentKey());
         garage.setDocumentUrl(null);
+        garage.setDocumentKey(null);
+        garage.setDocumentUploadId(null);
+        garage.setDocumentUploadStatus(null);
         garageRepository.save(garage);
+        garageResponseCache.evict(garageId);
     }
 
     private void validateGarageRequest(GarageRequest request) {
@@ -288,133 +314,88 @@ public class GarageService {
         }
     }
 
-    private GarageResponse mapToGarageResponse(Garage garage) {
-        List<GarageScheduleResponse> schedule = scheduleRepository.findByGarage_GarageId(garage.getGarageId())
-                .stream()
-                .map(this::mapToScheduleResponse)
-                .collect(Collectors.toList());
-
-        return GarageResponse.builder()
-                .garageId(garage.getGarageId())
-                .name(garage.getName())
-                .userId(garage.getUser().getUserId())
-                .ownerName(garage.getUser().getFirstName() + " " + garage.getUser().getLastName())
-                .ownerEmail(garage.getUser().getEmail())
-                .ownerPhoneNumber(garage.getUser().getPhoneNumber())
-                .ownerProfilePhotoUrl(garage.getUser().getProfilePhotoUrl())
-                .address(mapToAddressResponse(garage.getAddress()))
-                .photoUrl(garage.getPhotoUrl())
-                .documentUrl(garage.getDocumentUrl())
-                .status(garage.getStatus())
-                .rejectionReason(garage.getRejectionReason())
-                .schedule(schedule)
-                .build();
-    }
-
-    private GarageScheduleResponse mapToScheduleResponse(GarageSchedule schedule) {
-        return GarageScheduleResponse.builder()
-                .scheduleId(schedule.getScheduleId())
-                .dayOfWeek(schedule.getDayOfWeek())
-                .openingTime(schedule.getOpeningTime())
-                .closingTime(schedule.getClosingTime())
-                .isClosed(schedule.getIsClosed())
-                .build();
-    }
-
-    private org.example.backend.dto.user.AddressResponse mapToAddressResponse(org.example.backend.entity.Address address) {
-        return org.example.backend.dto.user.AddressResponse.builder()
-                .addressId(address.getAddressId())
-                .country(address.getCountry())
-                .city(address.getCity())
-                .street(address.getStreet())
-                .number(address.getNumber())
-                .zipCode(address.getZipCode())
-                .latitude(address.getLatitude())
-                .longitude(address.getLongitude())
-                .build();
-    }
-
-    @Transactional
+    @Transactional(readOnly = true)
     public Page<GarageResponse> searchGarages(GarageSearchRequest request) {
-        List<Garage> garages = garageRepository.findByStatus(org.example.backend.entity.GarageStatus.APPROVED);
-
-        garages = garages.stream().filter(garage ->
-            garage.getUser() != null &&
-            garage.getUser().getGarages() != null &&
-            garage.getUser().getGarages().contains(garage) &&
-            garage.getUser().getGarages().stream().anyMatch(g -> g.getGarageId().equals(garage.getGarageId())) &&
-            garage.getUser().getGarages().stream().anyMatch(g ->
-                g.getGarageId().equals(garage.getGarageId()) &&
-                g.getUser() != null &&
-                g.getUser().getGarages() != null
-            ) &&
-            // Caută angajați cu rol compatibil
-            userRepository.findEmployeesByGarageAndRoles(
-                List.of(Role.valueOf(request.getArea())),
-                garage.getGarageId()
-            ).size() > 0
-        ).collect(Collectors.toList());
-
-        double userLat = request.getLatitude();
-        double userLon = request.getLongitude();
-        List<GarageWithDistance> garageDistances = garages.stream().map(garage -> {
-            double garageLat = garage.getAddress().getLatitude();
-            double garageLon = garage.getAddress().getLongitude();
-            double distance = haversine(userLat, userLon, garageLat, garageLon);
-            return new GarageWithDistance(garage, distance);
-        }).collect(Collectors.toList());
-
-        if (request.isOpenNow()) {
-            LocalTime now = LocalTime.now();
-            garageDistances.sort((g1, g2) -> {
-                boolean open1 = isGarageOpenNow(g1.garage, now);
-                boolean open2 = isGarageOpenNow(g2.garage, now);
-                if (open1 == open2) return 0;
-                return open1 ? -1 : 1;
-            });
+        Role areaRole;
+        try {
+            areaRole = Role.valueOf(request.getArea());
+        } catch (Exception e) {
+            throw new InvalidGarageDataException("Invalid area/role: " + request.getArea());
         }
 
-        garageDistances.sort((g1, g2) -> Double.compare(g1.distance, g2.distance));
+        LocalDateTime openAt = request.getOpenAt() != null
+                ? request.getOpenAt()
+                : request.isOpenNow() ? LocalDateTime.now() : null;
+        Predicate<UUID> filter = garageId -> garageSearchIndex.hasEmployeeWithRole(garageId, areaRole)
+                && (openAt == null || garageSearchIndex.isOpenAt(garageId, openAt));
 
-        int page = request.getPage();
         int size = request.getSize();
+        String scope = searchScope(request);
+        // With a cursor the search resumes after the last garage of the previous page, so it is always page 0
+        GarageSearchIndex.Candidate after = decodeSearchCursor(request.getCursor(), scope);
+        if (after != null && request.getPage() != 0) {
+            throw new InvalidGarageDataException("page cannot be combined with a search cursor");
+        }
+        int page = after != null ? 0 : request.getPage();
         int start = page * size;
-        int end = Math.min(start + size, garageDistances.size());
-        List<GarageResponse> pageContent = garageDistances.subList(start, end).stream()
-            .map(gd -> mapToGarageResponse(gd.garage))
-            .collect(Collectors.toList());
-        return new PageImpl<>(pageContent, PageRequest.of(page, size), garageDistances.size());
+
+        // Only the garages around the user are touched, never the whole table.
+        // One extra candidate tells whether there is a next page.
+        List<GarageSearchIndex.Candidate> nearest = garageSearchIndex.findNearest(
+                request.getLatitude(),
+                request.getLongitude(),
+                start + size + 1,
+                after,
+                filter
+        );
+        List<GarageSearchIndex.Candidate> pageCandidates = start < nearest.size()
+                ? nearest.subList(start, Math.min(start + size, nearest.size()))
+                : List.of();
+        String nextCursor = nearest.size() > start + size
+                ? encodeSearchCursor(pageCandidates.get(pageCandidates.size() - 1), scope)
+                : null;
+
+        Map<UUID, Garage> garages = garageRepository.findByGarageIdIn(
+                pageCandidates.stream().map(GarageSearchIndex.Candidate::garageId).collect(Collectors.toList())
+        ).stream().collect(Collectors.toMap(Garage::getGarageId, garage -> garage));
+
+        List<GarageResponse> pageContent = garageResponseMapper.toResponses(pageCandidates.stream()
+                .map(candidate -> garages.get(candidate.garageId()))
+                .filter(java.util.Objects::nonNull)
+                .collect(Collectors.toList()));
+        // Kept per role by the index, so no scan; the open-at filter is not counted and makes it an upper bound
+        long total = garageSearchIndex.countWithRole(areaRole);
+        return new CursorPage<>(pageContent, PageRequest.of(page, size), total, openAt != null, nextCursor);
     }
 
-    private static class GarageWithDistance {
-        Garage garage;
-        double distance;
-        GarageWithDistance(Garage garage, double distance) {
-            this.garage = garage;
-            this.distance = distance;
-        }
+    // Distances in a cursor only mean something for the search that issued it
+    private String searchScope(GarageSearchRequest request) {
+        Object openAt = request.getOpenAt() != null ? request.getOpenAt() : request.isOpenNow() ? "now" : null;
+        return Integer.toHexString(java.util.Objects.hash(request.getLatitude(), request.getLongitude(), request.getArea(), openAt));
     }
 
-    // Haversine formula pentru distanta în km
-    private double haversine(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // km
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+    // "distance:garageId:scope", base64url encoded
+    private String encodeSearchCursor(GarageSearchIndex.Candidate candidate, String scope) {
+        String raw = candidate.distance() + ":" + candidate.garageId() + ":" + scope;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
-    private boolean isGarageOpenNow(Garage garage, LocalTime now) {
-        int dayOfWeek = java.time.LocalDate.now().getDayOfWeek().getValue() % 7; // 0=Luni, 6=Duminica
-        return garage.getSchedule().stream().anyMatch(s -> {
-            if (s.getDayOfWeek() != dayOfWeek || s.getIsClosed()) return false;
-            LocalTime open = LocalTime.parse(s.getOpeningTime().toString());
-            LocalTime close = LocalTime.parse(s.getClosingTime().toString());
-            return (now.equals(open) || now.isAfter(open)) && (now.equals(close) || now.isBefore(close));
-        });
+    private GarageSearchIndex.Candidate decodeSearchCursor(String cursor, String scope) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        GarageSearchIndex.Candidate candidate;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            candidate = new GarageSearchIndex.Candidate(UUID.fromString(parts[1]), Double.parseDouble(parts[0]));
+        } catch (Exception e) {
+            throw new InvalidGarageDataException("Invalid search cursor");
+        }
+        if (parts.length != 3 || !parts[2].equals(scope)) {
+            throw new InvalidGarageDataException("Search cursor belongs to another search");
+        }
+        return candidate;
     }
 
     @Transactional
@@ -439,55 +420,25 @@ public class GarageService {
         } catch (Exception e) {
             throw new InvalidGarageDataException("Invalid area/role: " + request.getArea());
         }
-        List<User> employees = userRepository.findEmployeesByGarageAndRoles(List.of(areaRole), garage.getGarageId());
-        if (employees.isEmpty()) {
-            throw new InvalidGarageDataException("No employees available for the selected area");
-        }
-        User selectedEmployee = null;
-        long minAppointments = Long.MAX_VALUE;
-        List<User> minEmployees = new java.util.ArrayList<>();
-        for (User employee : employees) {
-            long count = appointmentRepository.countByEmployeeAndDate(employee.getUserId(), request.getSelectedDate());
-            if (count < minAppointments) {
-                minAppointments = count;
-                minEmployees.clear();
-                minEmployees.add(employee);
-            } else if (count == minAppointments) {
-                minEmployees.add(employee);
-            }
-        }
-        if (minEmployees.size() == 1) {
-            selectedEmployee = minEmployees.get(0);
-        } else {
-            java.time.LocalDate date = request.getSelectedDate();
-            java.time.DayOfWeek dow = date.getDayOfWeek();
-            java.time.LocalDate weekStart = date.minusDays(dow.getValue() - 1);
-            java.time.LocalDate weekEnd = weekStart.plusDays(6);
-            long minWeek = Long.MAX_VALUE;
-            for (User employee : minEmployees) {
-                long weekCount = appointmentRepository.countByEmployeeAndWeek(employee.getUserId(), weekStart, weekEnd);
-                if (weekCount < minWeek) {
-                    minWeek = weekCount;
-                    selectedEmployee = employee;
-                }
-            }
-        }
-        if (selectedEmployee == null) {
-            throw new InvalidGarageDataException("No eligible employee found");
-        }
+        EmployeeLoad selectedEmployee = appointmentAssignmentService
+                .reserveEmployee(garage.getGarageId(), areaRole, request.getSelectedDate())
+                .orElseThrow(() -> new InvalidGarageDataException("No employees available for the selected area"));
         Appointment appointment = new Appointment();
         appointment.setGarage(garage);
         appointment.setVehicle(vehicle);
-        appointment.setEmployee(selectedEmployee);
+        appointment.setEmployee(userRepository.getReferenceById(selectedEmployee.getEmployeeId()));
         appointment.setStatus(AppointmentStatus.PENDING);
         appointment.setDetails(request.getDetails());
         appointment.setSelectedDate(request.getSelectedDate());
-        appointment = appointmentRepository.save(appointment);
+        appointment.setDailySlot(selectedEmployee.nextDailySlot());
         try {
-            emailService.sendEmployeeAppointmentAssigned(selectedEmployee.getEmail(), appointment.getSelectedDate(), garage.getName());
-        } catch (Exception e) {
-            System.err.println("Failed to send appointment notification: " + e.getMessage());
+            appointment = appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance booked the same employee slot at the same time
+            throw new AppointmentSlotUnavailableException("The selected date was just booked, please try again");
         }
+        appointmentLoadCounters.booked(selectedEmployee.getEmployeeId(), appointment.getSelectedDate(), appointment.getDailySlot());
+        emailService.sendEmployeeAppointmentAssigned(selectedEmployee.getEmail(), appointment.getSelectedDate(), garage.getName());
         return appointment;
     }
 
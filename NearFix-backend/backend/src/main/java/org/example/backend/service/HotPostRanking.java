@@ -0,0 +1,169 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.repository.PostRepository;
+import org.example.backend.repository.projection.HotPostCandidate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * "Hot" ordering of the post feed: likes decayed by age, kept in a Redis sorted set
+ * so the feed is read with ZREVRANGE instead of sorting the posts table. Scores are
+ * updated as likes come in and when posts are created or deleted (see
+ * scripts/hot_score.lua). Only posts from the last few days are ranked; a periodic
+ * rebuild from the database rescores them in place and drops posts that aged out.
+ */
+@Component
+@RequiredArgsConstructor
+public class HotPostRanking {
+    private static final String HOT_KEY = "post:hot";
+    private static final String CREATED_KEY = "post:hot:created";
+    private static final String UPDATED_KEY = "post:hot:updated";
+    private static final String SEQUENCE_KEY = "post:hot:sequence";
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisScript<Long> hotScoreScript;
+    private final PostRepository postRepository;
+    private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+
+    @Value("${posts.hot.decay-seconds:45000}")
+    private long decaySeconds;
+
+    @Value("${posts.hot.window-days:7}")
+    private int windowDays;
+
+    /**
+     * Post ids in hot order, skipping the first {@code offset}.
+     */
+    public List<UUID> getPostIds(long offset, int count) {
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(HOT_KEY, offset, offset + count - 1);
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream().map(UUID::fromString).toList();
+    }
+
+    public void postCreated(UUID postId, LocalDate creationDate) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                score("", List.of(postId.toString(), "0", createdSeconds(creationDate)));
+            } catch (Exception e) {
+                System.err.println("Failed to add post " + postId + " to hot ranking: " + e.getMessage());
+            }
+        });
+    }
+
+    public void postDeleted(UUID postId) {
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                stringRedisTemplate.opsForZSet().remove(HOT_KEY, postId.toString());
+                stringRedisTemplate.opsForHash().delete(CREATED_KEY, postId.toString());
+                stringRedisTemplate.opsForHash().delete(UPDATED_KEY, postId.toString());
+            } catch (Exception e) {
+                System.err.println("Failed to remove post " + postId + " from hot ranking: " + e.getMessage());
+            }
+        });
+    }
+
+    // Rescores posts whose like counts changed, in one script call
+    public void likesChanged(Map<UUID, Long> latestCounts) {
+        if (latestCounts.isEmpty()) {
+            return;
+        }
+        List<String> entries = new ArrayList<>(latestCounts.size() * 3);
+        latestCounts.forEach((postId, count) -> {
+            entries.add(postId.toString());
+            entries.add(count.toString());
+            entries.add("");
+        });
+        try {
+            score("", entries);
+        } catch (Exception e) {
+            System.err.println("Failed to update hot ranking for " + latestCounts.size() + " posts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scores are merged into the live keys, so posts created while it runs are kept. Counts
+     * are read with no write-behind flush in between, and posts rescored by likesChanged
+     * (on any instance) after the rebuild read the sequence number keep their newer score.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${posts.hot.rebuild-interval-ms:3600000}", initialDelayString = "${posts.hot.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        try {
+            LocalDate since = LocalDate.now().minusDays(windowDays);
+            String sequence = stringRedisTemplate.opsForValue().get(SEQUENCE_KEY);
+            String rebuiltFrom = sequence == null ? "0" : sequence;
+            List<HotPostCandidate> candidates = new ArrayList<>();
+            List<String> entries = likeWriteBehindBuffer.readConsistently(() -> {
+                candidates.addAll(postRepository.findHotCandidatesCreatedSince(since));
+                List<String> scored = new ArrayList<>(candidates.size() * 3);
+                for (HotPostCandidate candidate : candidates) {
+                    // Likes still waiting in the write-behind buffer are already counted in Redis
+                    long likes = candidate.getUpvotes() + likeWriteBehindBuffer.pendingPostDelta(candidate.getPostId());
+                    scored.add(candidate.getPostId().toString());
+                    scored.add(Long.toString(likes));
+                    scored.add(createdSeconds(candidate.getCreationDate()));
+                }
+                return scored;
+            });
+            for (int from = 0; from < entries.size(); from += REBUILD_BATCH_SIZE * 3) {
+                score(rebuiltFrom, entries.subList(from, Math.min(from + REBUILD_BATCH_SIZE * 3, entries.size())));
+            }
+            Set<String> ranked = new HashSet<>();
+            candidates.forEach(candidate -> ranked.add(candidate.getPostId().toString()));
+            removeStale(since, ranked);
+        } catch (Exception e) {
+            System.err.println("Failed to rebuild hot post ranking: " + e.getMessage());
+        }
+    }
+
+    // Drops posts that aged out of the window, and older posts the candidate query no longer
+    // returned (deleted). Posts from the last day may have been committed after the query ran,
+    // so those are left to postCreated and postDeleted.
+    private void removeStale(LocalDate since, Set<String> ranked) {
+        long cutoff = since.toEpochDay() * 86400;
+        long settled = LocalDate.now().minusDays(1).toEpochDay() * 86400;
+        List<Object> stale = new ArrayList<>();
+        stringRedisTemplate.opsForHash().entries(CREATED_KEY).forEach((postId, created) -> {
+            long createdSeconds = Long.parseLong(created.toString());
+            if (createdSeconds < cutoff || (createdSeconds < settled && !ranked.contains(postId.toString()))) {
+                stale.add(postId);
+            }
+        });
+        if (stale.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.opsForZSet().remove(HOT_KEY, stale.toArray());
+        stringRedisTemplate.opsForHash().delete(CREATED_KEY, stale.toArray());
+        stringRedisTemplate.opsForHash().delete(UPDATED_KEY, stale.toArray());
+    }
+
+    // rebuiltFrom is empty for live updates, see scripts/hot_score.lua
+    private void score(String rebuiltFrom, List<String> entries) {
+        List<String> args = new ArrayList<>(entries.size() + 2);
+        args.add(Long.toString(decaySeconds));
+        args.add(rebuiltFrom);
+        args.addAll(entries);
+        stringRedisTemplate.execute(hotScoreScript, List.of(HOT_KEY, CREATED_KEY, UPDATED_KEY, SEQUENCE_KEY), args.toArray());
+    }
+
+    private static String createdSeconds(LocalDate creationDate) {
+        return Long.toString(creationDate.toEpochDay() * 86400);
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.backend.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Renders fixed-size JPEG thumbnails of uploaded photos and stores them next to the
+ * original under {@link #thumbnailKey(String, int)}. Rendering runs on a pool with
+ * one thread per core. Large inputs are decoded with source subsampling close to the
+ * largest thumbnail size, so memory per render is bounded by the thumbnail sizes,
+ * not by the resolution of the upload.
+ */
+@Component
+public class ImageThumbnailer {
+    private static final String CONTENT_TYPE = "image/jpeg";
+
+    private final AmazonS3 s3Client;
+    private final int[] sizes;
+    private final float quality;
+    private final ExecutorService renderExecutor;
+
+    public ImageThumbnailer(AmazonS3 s3Client,
+                            @Value("${images.thumbnail-sizes:64,256,1024}") int[] sizes,
+                            @Value("${images.thumbnail-quality:0.8}") float quality,
+                            @Value("${images.thumbnail-threads:0}") int threads) {
+        this.s3Client = s3Client;
+        this.sizes = Arrays.stream(sizes).sorted().toArray();
+        this.quality = quality;
+        this.renderExecutor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int[] getSizes() {
+        return sizes.clone();
+    }
+
+    public boolean supports(String contentType) {
+        return contentType != null && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+
+    // Keeps the original extension, so replacing a.png with a.jpg cannot delete the new thumbnails
+    public String thumbnailKey(String key, int size) {
+        return "thumbnails/" + size + "/" + key + ".jpg";
+    }
+
+    /**
+     * Renders and stores the thumbnails of the image in {@code source}, which must stay
+     * in place until the returned future completes. Completes with the sizes that were
+     * stored, smallest first; failures are logged, not thrown, and leave sizes out.
+     */
+    public CompletableFuture<List<Integer>> generate(String bucket, String key, Path source) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<Integer, byte[]> thumbnails;
+            try {
+                thumbnails = render(source);
+            } catch (Exception e) {
+                System.err.println("Failed to create thumbnails of " + bucket + "/" + key + ": " + e.getMessage());
+                return List.of();
+            }
+            List<Integer> stored = new ArrayList<>();
+            for (Map.Entry<Integer, byte[]> thumbnail : thumbnails.entrySet()) {
+                byte[] bytes = thumbnail.getValue();
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentType(CONTENT_TYPE);
+                metadata.setContentLength(bytes.length);
+                try {
+                    s3Client.putObject(bucket, thumbnailKey(key, thumbnail.getKey()), new ByteArrayInputStream(bytes), metadata);
+                    stored.add(thumbnail.getKey());
+                } catch (Exception e) {
+                    System.err.println("Failed to store thumbnail " + thumbnail.getKey() + " of " + bucket + "/" + key + ": " + e.getMessage());
+                }
+            }
+            Collections.sort(stored);
+            return stored;
+        }, renderExecutor);
+    }
+
+    /**
+     * Same as {@link #generate} for a photo that is already in the bucket, which is read
+     * back into a temporary file. A missing photo has no thumbnails; other S3 errors are thrown.
+     */
+    public List<Integer> generateFromStored(String bucket, String key) throws IOException {
+        Path source = Files.createTempFile("thumbnail-source-", ".tmp");
+        try {
+            s3Client.getObject(new GetObjectRequest(bucket, key), source.toFile());
+            return generate(bucket, key, source).join();
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                return List.of();
+            }
+            throw e;
+        } finally {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    // Stored sizes as kept on the owning rows and uploads: "64,256,1024", empty for none
+    public static String formatSizes(List<Integer> sizes) {
+        return sizes.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public static List<Integer> parseSizes(String sizes) {
+        if (sizes == null || sizes.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(sizes.split(",")).map(Integer::valueOf).toList();
+    }
+
+    /**
+     * JPEG bytes by thumbnail size. Each thumbnail fits a size x size box and keeps the
+     * aspect ratio; images are never scaled up.
+     */
+    public Map<Integer, byte[]> render(Path source) throws IOException {
+        BufferedImage image = decode(source);
+        Map<Integer, byte[]> thumbnails = new LinkedHashMap<>();
+        // Largest first, each one scaled down from the previous, which keeps the smaller ones sharp
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            image = fit(image, sizes[i]);
+            thumbnails.put(sizes[i], encode(image));
+        }
+        return thumbnails;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdown();
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Keep at least twice the largest size for a clean final downscale
+                int subsampling = Math.max(1, longSide / (sizes[sizes.length - 1] * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage fit(BufferedImage image, int size) {
+        double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        if (scale == 1.0 && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha, transparent areas become white
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(CONTENT_TYPE).next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
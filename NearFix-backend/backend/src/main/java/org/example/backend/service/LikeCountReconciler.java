@@ -0,0 +1,115 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.repository.CommentRepository;
+import org.example.backend.repository.PostRepository;
+import org.example.backend.repository.projection.UpvoteCount;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Brings cached like counts back in line with the database, but only for the
+ * posts and comments that changed: ids whose likes were just flushed by
+ * {@link LikeWriteBehindBuffer} and ids that were missing from Redis when read.
+ * Counts are read through a slim projection and written back in one compare-and-set
+ * script per batch, so the cost follows the change volume, not the table size, and
+ * a counter toggled since it was read is never overwritten.
+ */
+@Component
+@RequiredArgsConstructor
+public class LikeCountReconciler {
+    private static final int BATCH_SIZE = 500;
+
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final RedisLikeService redisLikeService;
+    private final RedisCommentLikeService redisCommentLikeService;
+    private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+
+    private final Set<UUID> dirtyPostIds = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> dirtyCommentIds = ConcurrentHashMap.newKeySet();
+
+    public void markPostDirty(UUID postId) {
+        dirtyPostIds.add(postId);
+    }
+
+    public void markCommentDirty(UUID commentId) {
+        dirtyCommentIds.add(commentId);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        dirtyPostIds.addAll(likeWriteBehindBuffer.drainFlushedPostIds());
+        dirtyCommentIds.addAll(likeWriteBehindBuffer.drainFlushedCommentIds());
+        reconcile(dirtyPostIds, new Counts(postRepository::findUpvotesByPostIdIn, likeWriteBehindBuffer::pendingPostDelta,
+                redisLikeService::getLikeCounts, redisLikeService::syncLikeCounts));
+        reconcile(dirtyCommentIds, new Counts(commentRepository::findUpvotesByCommentIdIn, likeWriteBehindBuffer::pendingCommentDelta,
+                redisCommentLikeService::getLikeCounts, redisCommentLikeService::syncLikeCounts));
+    }
+
+    private record Counts(Function<Collection<UUID>, List<UpvoteCount>> loadUpvotes,
+                          ToLongFunction<UUID> pendingDelta,
+                          Function<List<UUID>, Map<UUID, Long>> readCached,
+                          BiFunction<Map<UUID, Long>, Map<UUID, Long>, Set<UUID>> writeCached) {
+    }
+
+    private void reconcile(Set<UUID> dirtyIds, Counts counts) {
+        List<UUID> batch = new ArrayList<>(BATCH_SIZE);
+        for (UUID id : new ArrayList<>(dirtyIds)) {
+            if (dirtyIds.remove(id)) {
+                batch.add(id);
+            }
+            if (batch.size() == BATCH_SIZE) {
+                reconcileBatch(batch, dirtyIds, counts);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            reconcileBatch(batch, dirtyIds, counts);
+        }
+    }
+
+    // A like toggled while the batch is read changes its counter, and possibly the pending delta,
+    // after the read. Those ids are not written and stay dirty for the next run.
+    private void reconcileBatch(List<UUID> ids, Set<UUID> dirtyIds, Counts counts) {
+        try {
+            Map<UUID, Long> cached = counts.readCached().apply(ids);
+            Map<UUID, Long> stored = new HashMap<>();
+            Set<UUID> toggled = likeWriteBehindBuffer.readConsistently(() -> {
+                Map<UUID, Long> pendingBefore = new HashMap<>();
+                ids.forEach(id -> pendingBefore.put(id, counts.pendingDelta().applyAsLong(id)));
+                Set<UUID> changed = new HashSet<>();
+                for (UpvoteCount row : counts.loadUpvotes().apply(ids)) {
+                    long pending = counts.pendingDelta().applyAsLong(row.getId());
+                    if (pending != pendingBefore.get(row.getId())) {
+                        changed.add(row.getId());
+                    } else {
+                        // Likes still waiting in the write-behind buffer are already counted in Redis
+                        stored.put(row.getId(), row.getUpvotes() + pending);
+                    }
+                }
+                return changed;
+            });
+            if (!stored.isEmpty()) {
+                toggled.addAll(counts.writeCached().apply(stored, cached));
+            }
+            dirtyIds.addAll(toggled);
+        } catch (Exception e) {
+            System.err.println("Failed to reconcile " + ids.size() + " like counts, will retry: " + e.getMessage());
+            dirtyIds.addAll(ids);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Collects like deltas per post and per comment and writes them to the database
+ * periodically, so like requests only touch Redis. Each flush issues one batched
+ * relative UPDATE per table, so database writes scale with the number of
+ * distinct posts and comments liked in the interval, not with clicks.
+ * Deltas that fail to flush are put back and retried on the next run; the ids
+ * that were written are picked up by {@link LikeCountReconciler}. A flush takes a
+ * delta out of the buffer before its UPDATE commits, so readers that add pending
+ * deltas to database counts do both inside {@link #readConsistently(Supplier)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class LikeWriteBehindBuffer {
+    private static final String UPDATE_POST_UPVOTES = "UPDATE posts SET upvotes = upvotes + ? WHERE post_id = ?";
+    private static final String UPDATE_COMMENT_UPVOTES = "UPDATE comments SET upvotes = upvotes + ? WHERE comment_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<UUID, Long> postDeltas = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> commentDeltas = new ConcurrentHashMap<>();
+    private final Set<UUID> flushedPostIds = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> flushedCommentIds = ConcurrentHashMap.newKeySet();
+    // Shared by readers of database count + pending delta, exclusive for a flush; adding likes never waits
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+
+    public void addPostDelta(UUID postId, long delta) {
+        postDeltas.merge(postId, delta, Long::sum);
+    }
+
+    public void addCommentDelta(UUID commentId, long delta) {
+        commentDeltas.merge(commentId, delta, Long::sum);
+    }
+
+    // Likes received but not yet written to the database
+    public long pendingPostDelta(UUID postId) {
+        return postDeltas.getOrDefault(postId, 0L);
+    }
+
+    public long pendingCommentDelta(UUID commentId) {
+        return commentDeltas.getOrDefault(commentId, 0L);
+    }
+
+    // Runs the read while no flush is moving deltas from the buffer to the database
+    public <T> T readConsistently(Supplier<T> read) {
+        flushLock.readLock().lock();
+        try {
+            return read.get();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    public Set<UUID> drainFlushedPostIds() {
+        return drain(flushedPostIds);
+    }
+
+    public Set<UUID> drainFlushedCommentIds() {
+        return drain(flushedCommentIds);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.write-behind.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.writeLock().lock();
+        try {
+            flush(postDeltas, flushedPostIds, UPDATE_POST_UPVOTES, "post");
+            flush(commentDeltas, flushedCommentIds, UPDATE_COMMENT_UPVOTES, "comment");
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private void flush(Map<UUID, Long> deltas, Set<UUID> flushedIds, String sql, String type) {
+        List<Object[]> batch = new ArrayList<>();
+        for (UUID id : new ArrayList<>(deltas.keySet())) {
+            // remove() hands over the delta atomically; likes arriving meanwhile start a new entry
+            Long delta = deltas.remove(id);
+            if (delta != null && delta != 0) {
+                batch.add(new Object[]{delta, id});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(sql, batch);
+            for (Object[] row : batch) {
+                flushedIds.add((UUID) row[1]);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to flush " + batch.size() + " " + type + " like deltas, will retry: " + e.getMessage());
+            for (Object[] row : batch) {
+                deltas.merge((UUID) row[1], (Long) row[0], Long::sum);
+            }
+        }
+    }
+
+    private static Set<UUID> drain(Set<UUID> ids) {
+        Set<UUID> drained = new HashSet<>();
+        for (UUID id : new ArrayList<>(ids)) {
+            if (ids.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+}
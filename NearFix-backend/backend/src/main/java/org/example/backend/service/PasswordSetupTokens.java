@@ -0,0 +1,60 @@
+package org.example.backend.service;
+
+import org.example.backend.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Single-use links with which new employees choose their password, so no password is
+ * ever emailed. Only the SHA-256 hash of the token is kept on the user; the link itself
+ * lives in the email outbox until it is sent and expires after the configured time.
+ */
+@Component
+public class PasswordSetupTokens {
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final String setupUrl;
+    private final Duration ttl;
+
+    public PasswordSetupTokens(@Value("${app.frontend.url}") String frontendUrl,
+                               @Value("${app.password-setup.ttl-hours:72}") long ttlHours) {
+        this.setupUrl = frontendUrl.replaceAll("/+$", "") + "/set-password?token=";
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    // Replaces any earlier token of the user and returns the link to email
+    public String issue(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        user.setPasswordSetupTokenHash(hash(token));
+        user.setPasswordSetupExpiresAt(LocalDateTime.now().plus(ttl));
+        return setupUrl + token;
+    }
+
+    public String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Password nobody knows, for accounts whose owner has not chosen one yet
+    public String unusablePassword() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
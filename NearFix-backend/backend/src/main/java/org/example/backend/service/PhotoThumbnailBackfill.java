@@ -0,0 +1,101 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.User;
+import org.example.backend.entity.Vehicle;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.VehicleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Renders thumbnails for photos stored before thumbnail sizes were recorded, including
+ * the ones StoredObjectKeyBackfill finds. Every photo ends with its stored sizes, empty
+ * when none could be made, so it is not picked up again. The sizes are only written while
+ * the row still has the photo they were rendered from; a photo replaced in the meantime
+ * gets its sizes from its own upload. After the first run this finds nothing to do.
+ */
+@Component
+@RequiredArgsConstructor
+public class PhotoThumbnailBackfill {
+    private static final int BATCH_SIZE = 100;
+
+    private final UserRepository userRepository;
+    private final VehicleRepository vehicleRepository;
+    private final GarageRepository garageRepository;
+    private final S3Service s3Service;
+    private final GarageResponseCache garageResponseCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private interface Backfill<T> {
+        // Returns whether the row still had the photo and was updated
+        boolean apply(T row) throws IOException;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        backfill("profile photos", () -> userRepository.findByProfilePhotoKeyIsNotNullAndProfilePhotoThumbnailSizesIsNull(Limit.of(BATCH_SIZE)),
+                this::backfillUser);
+        backfill("vehicle photos", () -> vehicleRepository.findByPhotoKeyIsNotNullAndPhotoThumbnailSizesIsNull(Limit.of(BATCH_SIZE)),
+                this::backfillVehicle);
+        backfill("garage photos", () -> garageRepository.findByPhotoKeyIsNotNullAndPhotoThumbnailSizesIsNull(Limit.of(BATCH_SIZE)),
+                this::backfillGarage);
+    }
+
+    // Stops when a whole batch was replaced underneath, so a row that keeps missing its sizes cannot loop
+    private <T> void backfill(String name, Supplier<List<T>> nextBatch, Backfill<T> backfill) {
+        int count = 0;
+        try {
+            List<T> batch;
+            int updated = 1;
+            while (updated > 0 && !(batch = nextBatch.get()).isEmpty()) {
+                updated = 0;
+                for (T row : batch) {
+                    if (backfill.apply(row)) {
+                        updated++;
+                    }
+                }
+                count += updated;
+            }
+        } catch (Exception e) {
+            System.err.println("Stopped backfilling thumbnails of " + name + " after " + count + " rows: " + e.getMessage());
+            return;
+        }
+        if (count > 0) {
+            System.out.println("Backfilled thumbnails of " + count + " " + name);
+        }
+    }
+
+    private boolean backfillUser(User user) throws IOException {
+        String sizes = s3Service.createProfilePhotoThumbnails(user.getProfilePhotoKey(), user.getProfilePhotoContentType());
+        return update(() -> userRepository.setProfilePhotoThumbnailSizes(user.getUserId(), user.getProfilePhotoKey(), sizes));
+    }
+
+    private boolean backfillVehicle(Vehicle vehicle) throws IOException {
+        String sizes = s3Service.createVehiclePhotoThumbnails(vehicle.getPhotoKey(), vehicle.getPhotoContentType());
+        return update(() -> vehicleRepository.setPhotoThumbnailSizes(vehicle.getVehicleId(), vehicle.getPhotoKey(), sizes));
+    }
+
+    private boolean backfillGarage(Garage garage) throws IOException {
+        String sizes = s3Service.createGaragePhotoThumbnails(garage.getPhotoKey(), garage.getPhotoContentType());
+        if (!update(() -> garageRepository.setPhotoThumbnailSizes(garage.getGarageId(), garage.getPhotoKey(), sizes))) {
+            return false;
+        }
+        garageResponseCache.evict(garage.getGarageId());
+        return true;
+    }
+
+    private boolean update(Supplier<Integer> update) {
+        Integer updated = transactionTemplate.execute(status -> update.get());
+        return updated != null && updated > 0;
+    }
+}
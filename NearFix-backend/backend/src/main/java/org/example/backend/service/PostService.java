@@ -2,6 +2,8 @@ package org.example.backend.service;
 
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.like.LikeRequest;
+import org.example.backend.dto.like.LikeToggleResult;
+import org.example.backend.dto.pagination.CursorSlice;
 import org.example.backend.dto.post.PostFilterRequest;
 import org.example.backend.dto.post.PostRequest;
 import org.example.backend.dto.post.PostResponse;
@@ -13,17 +15,26 @@ import org.example.backend.exception.post.PostNotFoundException;
 import org.example.backend.exception.user.UserNotFoundException;
 import org.example.backend.repository.PostRepository;
 import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.AuthorView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -34,6 +45,16 @@ public class PostService {
     private final UserRepository userRepository;
     private final RedisLikeService redisLikeService;
     private final WebSocketLikeService webSocketLikeService;
+    private final LikeWriteBehindBuffer likeWriteBehindBuffer;
+    private final LikeCountReconciler likeCountReconciler;
+    private final ForumFullTextSearch forumFullTextSearch;
+    private final HotPostRanking hotPostRanking;
+    private final ForumAuthors forumAuthors;
+
+    // Orders search results by how well they match; without a search term it falls back to the newest first
+    private static final String RELEVANCE_SORT = "relevance";
+    // Likes decayed by age, read from the Redis ranking (see HotPostRanking)
+    private static final String HOT_SORT = "hot";
 
     @Transactional
     public PostResponse createPost(PostRequest request, String userEmail) {
@@ -59,11 +80,19 @@ public class PostService {
 
         // Initialize Redis cache for the new post
         redisLikeService.syncLikeCount(post.getPostId(), 0L);
+        hotPostRanking.postCreated(post.getPostId(), post.getCreationDate());
 
         return mapToPostResponse(post);
     }
 
-    public Page<PostResponse> getAllPosts(PostFilterRequest filterRequest) {
+    public Slice<PostResponse> getAllPosts(PostFilterRequest filterRequest, String userEmail) {
+        if (HOT_SORT.equals(filterRequest.getSortBy()) && normalizeSearchTerm(filterRequest.getSearchTerm()) == null) {
+            return getHotPosts(filterRequest, userEmail);
+        }
+        if (filterRequest.isKeyset() || filterRequest.getCursor() != null) {
+            return getPostsByCursor(filterRequest, userEmail);
+        }
+
         String sortBy = mapSortField(filterRequest.getSortBy());
         Sort.Direction direction = Sort.Direction.fromString(filterRequest.getSortDirection());
         Pageable pageable = PageRequest.of(
@@ -72,12 +101,94 @@ public class PostService {
                 Sort.by(direction, sortBy)
         );
 
-        Page<Post> posts = postRepository.findAllWithFilter(
-                filterRequest.getSearchTerm(),
-                pageable
-        );
+        String searchTerm = normalizeSearchTerm(filterRequest.getSearchTerm());
+        Page<Post> posts;
+        if (searchTerm != null && forumFullTextSearch.isAvailable()) {
+            posts = RELEVANCE_SORT.equals(filterRequest.getSortBy())
+                    ? postRepository.searchFullTextByRank(searchTerm, PageRequest.of(filterRequest.getPage(), filterRequest.getSize()))
+                    : postRepository.searchFullText(searchTerm, pageable);
+        } else {
+            posts = postRepository.findAllWithFilter(searchTerm, pageable);
+        }
+
+        return new PageImpl<>(mapToPostResponses(posts.getContent(), userEmail), posts.getPageable(), posts.getTotalElements());
+    }
+
+    // One ZREVRANGE for the ids of the page, one query for the posts
+    private Slice<PostResponse> getHotPosts(PostFilterRequest filterRequest, String userEmail) {
+        int size = filterRequest.getSize();
+        List<UUID> postIds = hotPostRanking.getPostIds((long) filterRequest.getPage() * size, size + 1);
+        boolean hasNext = postIds.size() > size;
+        List<UUID> pageIds = hasNext ? postIds.subList(0, size) : postIds;
+
+        Map<UUID, Post> postsById = postRepository.findByPostIdIn(pageIds)
+                .stream()
+                .collect(Collectors.toMap(Post::getPostId, post -> post));
+        // Keep the ranking order; posts deleted since they were ranked are skipped
+        List<Post> posts = pageIds.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new SliceImpl<>(mapToPostResponses(posts, userEmail),
+                PageRequest.of(filterRequest.getPage(), size), hasNext);
+    }
+
+    // Seeks past the last post of the previous slice instead of skipping rows, and never counts
+    private CursorSlice<PostResponse> getPostsByCursor(PostFilterRequest filterRequest, String userEmail) {
+        String sortKey = "upvotes".equals(filterRequest.getSortBy()) ? "upvotes" : "creationDate";
+        Sort.Direction direction = Sort.Direction.fromString(filterRequest.getSortDirection());
+        CursorSlice.Position after = decodeFeedCursor(filterRequest.getCursor(), sortKey);
+        int size = filterRequest.getSize();
+
+        String searchTerm = normalizeSearchTerm(filterRequest.getSearchTerm());
+        List<Post> posts;
+        boolean hasNext;
+        if (searchTerm != null && forumFullTextSearch.isAvailable()) {
+            Slice<Post> slice = searchFullTextAfter(searchTerm, sortKey, direction, after, size);
+            posts = slice.getContent();
+            hasNext = slice.hasNext();
+        } else {
+            Sort sort = Sort.by(direction, sortKey, "postId");
+            ScrollPosition position = after == null ? ScrollPosition.keyset() : after.toScrollPosition(sortKey, "postId");
+            Window<Post> window = searchTerm == null
+                    ? postRepository.findBy(position, sort, Limit.of(size))
+                    : postRepository.findByTitleContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
+                            searchTerm, searchTerm, position, sort, Limit.of(size));
+            posts = window.getContent();
+            hasNext = window.hasNext();
+        }
 
-        return posts.map(this::mapToPostResponse);
+        String nextCursor = null;
+        if (hasNext && !posts.isEmpty()) {
+            Post last = posts.get(posts.size() - 1);
+            Object value = "upvotes".equals(sortKey) ? last.getUpvotes() : last.getCreationDate();
+            nextCursor = CursorSlice.encodeCursor(sortKey, value, last.getPostId());
+        }
+        return new CursorSlice<>(mapToPostResponses(posts, userEmail),
+                PageRequest.of(0, size, Sort.by(direction, sortKey, "postId")), hasNext, nextCursor);
+    }
+
+    // Same tsvector match as the paged search, so keyset mode does not change which posts are found
+    private Slice<Post> searchFullTextAfter(String searchTerm, String sortKey, Sort.Direction direction,
+                                            CursorSlice.Position after, int size) {
+        Pageable pageable = PageRequest.of(0, size, Sort.by(direction, mapSortField(sortKey), "post_id"));
+        if (after == null) {
+            return postRepository.searchFullTextSlice(searchTerm, pageable);
+        }
+        return "upvotes".equals(sortKey)
+                ? postRepository.searchFullTextAfterUpvotes(searchTerm, (Integer) after.value(), after.id(),
+                        direction.isDescending(), pageable)
+                : postRepository.searchFullTextAfterCreationDate(searchTerm, (LocalDate) after.value(), after.id(),
+                        direction.isDescending(), pageable);
+    }
+
+    private CursorSlice.Position decodeFeedCursor(String cursor, String sortKey) {
+        try {
+            return CursorSlice.decodeCursor(cursor, sortKey,
+                    value -> "upvotes".equals(sortKey) ? Integer.valueOf(value) : LocalDate.parse(value));
+        } catch (Exception e) {
+            throw new InvalidPostDataException("Invalid feed cursor");
+        }
     }
 
     public PostResponse getPost(UUID postId) {
@@ -128,51 +239,48 @@ public class PostService {
         // The comments will be automatically deleted due to the @OneToMany relationship
         // with cascade = CascadeType.ALL in the Post entity
         postRepository.delete(post);
+        hotPostRanking.postDeleted(postId);
     }
 
-    @Transactional
     public void processBatchLikes(List<LikeRequest> likes, String username) {
-        // Group likes by post to minimize database operations
-        Map<UUID, Long> postLikeCounts = new java.util.HashMap<>();
-        
+        Map<UUID, Long> latestCounts = new java.util.HashMap<>();
+
         for (LikeRequest like : likes) {
-            if (like.isLike()) {
-                redisLikeService.incrementLike(like.getPostId(), username);
-                postLikeCounts.merge(like.getPostId(), 1L, Long::sum);
-            } else {
-                redisLikeService.decrementLike(like.getPostId(), username);
-                postLikeCounts.merge(like.getPostId(), -1L, Long::sum);
+            LikeToggleResult result = like.isLike()
+                    ? redisLikeService.incrementLike(like.getPostId(), username, () -> storedLikeCount(like.getPostId()))
+                    : redisLikeService.decrementLike(like.getPostId(), username, () -> storedLikeCount(like.getPostId()));
+            // Repeated likes or unlikes leave Redis untouched and must not reach the database either.
+            // The database catches up through the write-behind buffer, fed right after each toggle
+            if (result.isChanged()) {
+                likeWriteBehindBuffer.addPostDelta(like.getPostId(), like.isLike() ? 1L : -1L);
+                latestCounts.put(like.getPostId(), result.getLikeCount());
             }
         }
 
-        // Update posts in bulk and broadcast updates
-        for (Map.Entry<UUID, Long> entry : postLikeCounts.entrySet()) {
-            UUID postId = entry.getKey();
-            Long countChange = entry.getValue();
-            
-            // Get current upvotes from database
-            Post post = postRepository.findById(postId).orElse(null);
-            if (post != null) {
-                int newUpvotes = post.getUpvotes() + countChange.intValue();
-                postRepository.updateUpvotes(postId, newUpvotes);
-                
-                // Sync the updated count back to Redis to ensure consistency
-                redisLikeService.syncLikeCount(postId, (long) newUpvotes);
-                
-                // Broadcast the update via WebSocket
-                webSocketLikeService.broadcastLikeUpdate(postId);
-            }
-        }
+        latestCounts.keySet().forEach(webSocketLikeService::broadcastLikeUpdate);
+        hotPostRanking.likesChanged(latestCounts);
     }
 
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Transactional
-    public void syncLikesWithDatabase() {
-        // Get all posts and sync their like counts with Redis
-        List<Post> posts = postRepository.findAll();
-        for (Post post : posts) {
-            redisLikeService.syncLikeCount(post.getPostId(), (long) post.getUpvotes());
+    // Cached count, or the database count plus unflushed likes when Redis does not have it
+    public long getLikeCount(UUID postId) {
+        Long cached = redisLikeService.getLikeCount(postId);
+        if (cached != null) {
+            return cached;
         }
+        likeCountReconciler.markPostDirty(postId);
+        return storedLikeCount(postId);
+    }
+
+    private long storedLikeCount(UUID postId) {
+        return likeWriteBehindBuffer.readConsistently(() -> postRepository.findUpvotesByPostIdIn(List.of(postId))
+                .stream()
+                .findFirst()
+                .map(row -> row.getUpvotes() + likeWriteBehindBuffer.pendingPostDelta(postId))
+                .orElse(0L));
+    }
+
+    private static String normalizeSearchTerm(String searchTerm) {
+        return searchTerm == null || searchTerm.isBlank() ? null : searchTerm.trim();
     }
 
     private String mapSortField(String field) {
@@ -186,20 +294,43 @@ public class PostService {
     }
 
     private PostResponse mapToPostResponse(Post post) {
-        // Use Redis like count for real-time accuracy, fallback to database count
-        Long redisLikeCount = redisLikeService.getLikeCount(post.getPostId());
-        int upvotes = redisLikeCount != null ? redisLikeCount.intValue() : post.getUpvotes();
-        
-        return PostResponse.builder()
-                .postId(post.getPostId())
-                .title(post.getTitle())
-                .description(post.getDescription())
-                .upvotes(upvotes)
-                .creationDate(post.getCreationDate())
-                .authorName(post.getUser().getFirstName() + " " + post.getUser().getLastName())
-                .authorId(post.getUser().getUserId())
-                .authorEmail(post.getUser().getEmail())
-                .isEdited(post.getIsEdited())
-                .build();
+        return mapToPostResponses(List.of(post), null).get(0);
+    }
+
+    // Resolves like counts and the user's likes for the whole list in two Redis calls
+    private List<PostResponse> mapToPostResponses(List<Post> posts, String userEmail) {
+        List<UUID> postIds = posts.stream().map(Post::getPostId).toList();
+        Map<UUID, Long> redisLikeCounts = redisLikeService.getLikeCounts(postIds);
+        Set<UUID> likedPostIds = userEmail != null
+                ? redisLikeService.getLikedBy(userEmail, postIds)
+                : Set.of();
+        Map<UUID, AuthorView> authors = forumAuthors.resolve(posts.stream().map(Post::getUser).toList());
+
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            // Use Redis like count for real-time accuracy, fallback to database count
+            Long redisLikeCount = redisLikeCounts.get(post.getPostId());
+            if (redisLikeCount == null) {
+                likeCountReconciler.markPostDirty(post.getPostId());
+            }
+            int upvotes = redisLikeCount != null
+                    ? redisLikeCount.intValue()
+                    : post.getUpvotes() + (int) likeWriteBehindBuffer.pendingPostDelta(post.getPostId());
+            AuthorView author = authors.get(post.getUser().getUserId());
+
+            responses.add(PostResponse.builder()
+                    .postId(post.getPostId())
+                    .title(post.getTitle())
+                    .description(post.getDescription())
+                    .upvotes(upvotes)
+                    .creationDate(post.getCreationDate())
+                    .authorName(author.getFirstName() + " " + author.getLastName())
+                    .authorId(author.getUserId())
+                    .authorEmail(author.getEmail())
+                    .isEdited(post.getIsEdited())
+                    .hasLiked(likedPostIds.contains(post.getPostId()))
+                    .build());
+        }
+        return responses;
     }
 } 
\ No newline at end of file
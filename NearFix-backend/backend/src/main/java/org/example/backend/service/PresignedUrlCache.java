@@ -0,0 +1,66 @@
+package org.example.backend.service;
+
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Presigned GET URLs by bucket and key. A URL is signed once and handed out until
+ * it is within the refresh margin of its expiry; the next request then signs a new
+ * one. Responses build photo URLs from the stored keys through this cache, so no
+ * URL has to be kept in the database or refreshed by listing the buckets. The
+ * margin has to outlive anything that caches responses (see GarageResponseCache).
+ */
+@Component
+public class PresignedUrlCache {
+    private final AmazonS3 s3Client;
+    private final Duration validity;
+    private final Cache<ObjectRef, SignedUrl> cache;
+
+    private record ObjectRef(String bucket, String key) {
+    }
+
+    private record SignedUrl(String url, Instant expiresAt) {
+    }
+
+    public PresignedUrlCache(AmazonS3 s3Client,
+                             @Value("${aws.s3.presigned-url.expiration}") long expirationMs,
+                             @Value("${aws.s3.presigned-url.refresh-margin-ms:3600000}") long refreshMarginMs,
+                             @Value("${aws.s3.presigned-url.cache-size:50000}") long maxSize) {
+        this.s3Client = s3Client;
+        this.validity = Duration.ofMillis(expirationMs);
+        Duration refreshMargin = Duration.ofMillis(refreshMarginMs);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.<ObjectRef, SignedUrl>writing((ref, signed) -> {
+                    Duration remaining = Duration.between(Instant.now(), signed.expiresAt()).minus(refreshMargin);
+                    return remaining.isNegative() ? Duration.ZERO : remaining;
+                }))
+                .build();
+    }
+
+    public String get(String bucket, String key) {
+        return cache.get(new ObjectRef(bucket, key), this::sign).url();
+    }
+
+    public void invalidate(String bucket, String key) {
+        cache.invalidate(new ObjectRef(bucket, key));
+    }
+
+    private SignedUrl sign(ObjectRef ref) {
+        Instant expiresAt = Instant.now().plus(validity);
+        GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(ref.bucket(), ref.key())
+                .withMethod(HttpMethod.GET)
+                .withExpiration(Date.from(expiresAt));
+        return new SignedUrl(s3Client.generatePresignedUrl(request).toString(), expiresAt);
+    }
+}
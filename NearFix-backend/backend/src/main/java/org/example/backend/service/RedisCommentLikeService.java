@@ -1,53 +1,86 @@
 package org.example.backend.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.like.LikeToggleResult;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 @Service
 @RequiredArgsConstructor
 public class RedisCommentLikeService {
     private final RedisTemplate<String, Object> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> toggleLikeScript;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> syncLikeCountsScript;
     private static final String COMMENT_LIKES_KEY = "comment:likes:";
     private static final String USER_COMMENT_LIKES_KEY = "user:comment_likes:";
     private static final long CACHE_EXPIRATION = 24 * 60 * 60; // 24 hours
 
-    public void incrementLike(UUID commentId, String username) {
-        String commentKey = COMMENT_LIKES_KEY + commentId;
-        String userKey = USER_COMMENT_LIKES_KEY + username;
-        
-        if (!hasUserLiked(commentId, username)) {
-            redisTemplate.opsForValue().increment(commentKey);
-            redisTemplate.opsForSet().add(userKey, commentId.toString());
-            redisTemplate.expire(commentKey, CACHE_EXPIRATION, TimeUnit.SECONDS);
-            redisTemplate.expire(userKey, CACHE_EXPIRATION, TimeUnit.SECONDS);
+    // storedCount is only called when the counter is not cached, to start it from the stored count
+    public LikeToggleResult incrementLike(UUID commentId, String username, LongSupplier storedCount) {
+        return toggleLike(commentId, username, true, storedCount);
+    }
+
+    public LikeToggleResult decrementLike(UUID commentId, String username, LongSupplier storedCount) {
+        return toggleLike(commentId, username, false, storedCount);
+    }
+
+    // Membership check, counter update and TTLs in a single round trip (see scripts/toggle_like.lua).
+    // A missing counter costs one more round trip, with the stored count to start it from.
+    private LikeToggleResult toggleLike(UUID commentId, String username, boolean like, LongSupplier storedCount) {
+        List<Long> result = toggleLike(commentId, username, like, -1);
+        if (result.get(0) < 0) {
+            result = toggleLike(commentId, username, like, storedCount.getAsLong());
         }
+        return new LikeToggleResult(result.get(0), result.get(1) == 1, result.get(2) == 1);
     }
 
-    public void decrementLike(UUID commentId, String username) {
+    @SuppressWarnings("unchecked")
+    private List<Long> toggleLike(UUID commentId, String username, boolean like, long seed) {
         String commentKey = COMMENT_LIKES_KEY + commentId;
         String userKey = USER_COMMENT_LIKES_KEY + username;
-        
-        if (hasUserLiked(commentId, username)) {
-            redisTemplate.opsForValue().decrement(commentKey);
-            redisTemplate.opsForSet().remove(userKey, commentId.toString());
-        }
+        return redisTemplate.execute(
+                toggleLikeScript,
+                List.of(commentKey, userKey),
+                commentId.toString(), like ? 1 : 0, CACHE_EXPIRATION, seed
+        );
     }
 
+    // null when the count is not cached, so callers can fall back to the database
     public Long getLikeCount(UUID commentId) {
-        String commentKey = COMMENT_LIKES_KEY + commentId;
-        Object count = redisTemplate.opsForValue().get(commentKey);
-        if (count != null) {
-            try {
-                return Long.parseLong(count.toString());
-            } catch (NumberFormatException e) {
-                return 0L;
+        return parseCount(redisTemplate.opsForValue().get(COMMENT_LIKES_KEY + commentId));
+    }
+
+    // Counts for a whole page in one MGET; comments whose count is not cached are left out
+    public Map<UUID, Long> getLikeCounts(List<UUID> commentIds) {
+        Map<UUID, Long> counts = new HashMap<>();
+        if (commentIds.isEmpty()) {
+            return counts;
+        }
+        List<String> keys = commentIds.stream().map(id -> COMMENT_LIKES_KEY + id).toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return counts;
+        }
+        for (int i = 0; i < commentIds.size(); i++) {
+            Long count = parseCount(values.get(i));
+            if (count != null) {
+                counts.put(commentIds.get(i), count);
             }
         }
-        return 0L;
+        return counts;
     }
 
     public boolean hasUserLiked(UUID commentId, String username) {
@@ -55,12 +88,51 @@ public class RedisCommentLikeService {
         return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(userKey, commentId.toString()));
     }
 
+    // The comments of a page the user has liked, in one SMISMEMBER
+    public Set<UUID> getLikedBy(String username, List<UUID> commentIds) {
+        if (commentIds.isEmpty()) {
+            return Set.of();
+        }
+        String userKey = USER_COMMENT_LIKES_KEY + username;
+        Map<Object, Boolean> membership = redisTemplate.opsForSet().isMember(userKey, commentIds.stream().map(UUID::toString).toArray());
+        if (membership == null) {
+            return Set.of();
+        }
+        Set<UUID> liked = new HashSet<>();
+        for (UUID id : commentIds) {
+            if (Boolean.TRUE.equals(membership.get(id.toString()))) {
+                liked.add(id);
+            }
+        }
+        return liked;
+    }
+
     public void syncLikeCount(UUID commentId, Long count) {
         String commentKey = COMMENT_LIKES_KEY + commentId;
         redisTemplate.opsForValue().set(commentKey, count);
         redisTemplate.expire(commentKey, CACHE_EXPIRATION, TimeUnit.SECONDS);
     }
 
+    // Compare-and-set of many counts in one round trip (see scripts/sync_like_counts.lua). seen holds the
+    // cached counts read before the new ones were computed; returns the ids whose counter changed since
+    @SuppressWarnings("unchecked")
+    public Set<UUID> syncLikeCounts(Map<UUID, Long> counts, Map<UUID, Long> seen) {
+        List<UUID> ids = new ArrayList<>(counts.keySet());
+        List<String> keys = ids.stream().map(id -> COMMENT_LIKES_KEY + id).toList();
+        Object[] args = new Object[1 + 2 * ids.size()];
+        args[0] = CACHE_EXPIRATION;
+        for (int i = 0; i < ids.size(); i++) {
+            args[1 + 2 * i] = seen.getOrDefault(ids.get(i), -1L);
+            args[2 + 2 * i] = counts.get(ids.get(i));
+        }
+        List<Long> skipped = redisTemplate.execute(syncLikeCountsScript, keys, args);
+        Set<UUID> changed = new HashSet<>();
+        for (Long position : skipped) {
+            changed.add(ids.get(position.intValue() - 1));
+        }
+        return changed;
+    }
+
     public void clearUserLikes(String username) {
         String userKey = USER_COMMENT_LIKES_KEY + username;
         redisTemplate.delete(userKey);
@@ -70,4 +142,15 @@ public class RedisCommentLikeService {
         String commentKey = COMMENT_LIKES_KEY + commentId;
         redisTemplate.delete(commentKey);
     }
+
+    private static Long parseCount(Object count) {
+        if (count == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(count.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 } 
\ No newline at end of file
@@ -1,54 +1,86 @@
 package org.example.backend.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.like.LikeToggleResult;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 @Service
 @RequiredArgsConstructor
 public class RedisLikeService {
     private final RedisTemplate<String, Object> redisTemplate;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> toggleLikeScript;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> syncLikeCountsScript;
     private static final String POST_LIKES_KEY = "post:likes:";
     private static final String USER_LIKES_KEY = "user:likes:";
     private static final long CACHE_EXPIRATION = 24 * 60 * 60; // 24 hours
 
-    public void incrementLike(UUID postId, String username) {
-        String postKey = POST_LIKES_KEY + postId;
-        String userKey = USER_LIKES_KEY + username;
-        
-        if (!hasUserLiked(postId, username)) {
-            redisTemplate.opsForValue().increment(postKey);
-            redisTemplate.opsForSet().add(userKey, postId.toString());
-            redisTemplate.expire(postKey, CACHE_EXPIRATION, TimeUnit.SECONDS);
-            redisTemplate.expire(userKey, CACHE_EXPIRATION, TimeUnit.SECONDS);
+    // storedCount is only called when the counter is not cached, to start it from the stored count
+    public LikeToggleResult incrementLike(UUID postId, String username, LongSupplier storedCount) {
+        return toggleLike(postId, username, true, storedCount);
+    }
+
+    public LikeToggleResult decrementLike(UUID postId, String username, LongSupplier storedCount) {
+        return toggleLike(postId, username, false, storedCount);
+    }
+
+    // Membership check, counter update and TTLs in a single round trip (see scripts/toggle_like.lua).
+    // A missing counter costs one more round trip, with the stored count to start it from.
+    private LikeToggleResult toggleLike(UUID postId, String username, boolean like, LongSupplier storedCount) {
+        List<Long> result = toggleLike(postId, username, like, -1);
+        if (result.get(0) < 0) {
+            result = toggleLike(postId, username, like, storedCount.getAsLong());
         }
+        return new LikeToggleResult(result.get(0), result.get(1) == 1, result.get(2) == 1);
     }
 
-    public void decrementLike(UUID postId, String username) {
+    @SuppressWarnings("unchecked")
+    private List<Long> toggleLike(UUID postId, String username, boolean like, long seed) {
         String postKey = POST_LIKES_KEY + postId;
         String userKey = USER_LIKES_KEY + username;
-        
-        // Check if user has liked this post before removing
-        if (hasUserLiked(postId, username)) {
-            redisTemplate.opsForValue().decrement(postKey);
-            redisTemplate.opsForSet().remove(userKey, postId.toString());
-        }
+        return redisTemplate.execute(
+                toggleLikeScript,
+                List.of(postKey, userKey),
+                postId.toString(), like ? 1 : 0, CACHE_EXPIRATION, seed
+        );
     }
 
+    // null when the count is not cached, so callers can fall back to the database
     public Long getLikeCount(UUID postId) {
-        String postKey = POST_LIKES_KEY + postId;
-        Object count = redisTemplate.opsForValue().get(postKey);
-        if (count != null) {
-            try {
-                return Long.parseLong(count.toString());
-            } catch (NumberFormatException e) {
-                return 0L;
+        return parseCount(redisTemplate.opsForValue().get(POST_LIKES_KEY + postId));
+    }
+
+    // Counts for a whole page in one MGET; posts whose count is not cached are left out
+    public Map<UUID, Long> getLikeCounts(List<UUID> postIds) {
+        Map<UUID, Long> counts = new HashMap<>();
+        if (postIds.isEmpty()) {
+            return counts;
+        }
+        List<String> keys = postIds.stream().map(id -> POST_LIKES_KEY + id).toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return counts;
+        }
+        for (int i = 0; i < postIds.size(); i++) {
+            Long count = parseCount(values.get(i));
+            if (count != null) {
+                counts.put(postIds.get(i), count);
             }
         }
-        return 0L;
+        return counts;
     }
 
     public boolean hasUserLiked(UUID postId, String username) {
@@ -56,12 +88,51 @@ public class RedisLikeService {
         return Boolean.TRUE.equals(redisTemplate.opsForSet().isMember(userKey, postId.toString()));
     }
 
+    // The posts of a page the user has liked, in one SMISMEMBER
+    public Set<UUID> getLikedBy(String username, List<UUID> postIds) {
+        if (postIds.isEmpty()) {
+            return Set.of();
+        }
+        String userKey = USER_LIKES_KEY + username;
+        Map<Object, Boolean> membership = redisTemplate.opsForSet().isMember(userKey, postIds.stream().map(UUID::toString).toArray());
+        if (membership == null) {
+            return Set.of();
+        }
+        Set<UUID> liked = new HashSet<>();
+        for (UUID id : postIds) {
+            if (Boolean.TRUE.equals(membership.get(id.toString()))) {
+                liked.add(id);
+            }
+        }
+        return liked;
+    }
+
     public void syncLikeCount(UUID postId, Long count) {
         String postKey = POST_LIKES_KEY + postId;
         redisTemplate.opsForValue().set(postKey, count);
         redisTemplate.expire(postKey, CACHE_EXPIRATION, TimeUnit.SECONDS);
     }
 
+    // Compare-and-set of many counts in one round trip (see scripts/sync_like_counts.lua). seen holds the
+    // cached counts read before the new ones were computed; returns the ids whose counter changed since
+    @SuppressWarnings("unchecked")
+    public Set<UUID> syncLikeCounts(Map<UUID, Long> counts, Map<UUID, Long> seen) {
+        List<UUID> ids = new ArrayList<>(counts.keySet());
+        List<String> keys = ids.stream().map(id -> POST_LIKES_KEY + id).toList();
+        Object[] args = new Object[1 + 2 * ids.size()];
+        args[0] = CACHE_EXPIRATION;
+        for (int i = 0; i < ids.size(); i++) {
+            args[1 + 2 * i] = seen.getOrDefault(ids.get(i), -1L);
+            args[2 + 2 * i] = counts.get(ids.get(i));
+        }
+        List<Long> skipped = redisTemplate.execute(syncLikeCountsScript, keys, args);
+        Set<UUID> changed = new HashSet<>();
+        for (Long position : skipped) {
+            changed.add(ids.get(position.intValue() - 1));
+        }
+        return changed;
+    }
+
     public void clearUserLikes(String username) {
         String userKey = USER_LIKES_KEY + username;
         redisTemplate.delete(userKey);
@@ -71,4 +142,15 @@ public class RedisLikeService {
         String postKey = POST_LIKES_KEY + postId;
         redisTemplate.delete(postKey);
     }
+
+    private static Long parseCount(Object count) {
+        if (count == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(count.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
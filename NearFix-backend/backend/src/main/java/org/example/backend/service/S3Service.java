@@ -1,31 +1,36 @@
 package org.example.backend.service;
 
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.amazonaws.services.s3.model.PutObjectRequest;
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.storage.StoredFile;
+import org.example.backend.entity.FileUpload;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.URL;
-import java.util.Date;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.List;
 import java.util.ArrayList;
-import com.amazonaws.services.s3.model.ListObjectsV2Request;
-import com.amazonaws.services.s3.model.ListObjectsV2Result;
-import com.amazonaws.services.s3.model.S3ObjectSummary;
+import java.util.stream.Stream;
 
+// Not transactional: URLs are built on every response, uploads join the caller's transaction.
+// A new upload does not replace the stored file right away: FileUploadOwners switches the
+// owning row over and deletes the previous file once the upload has completed.
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class S3Service {
 
     private final AmazonS3 s3Client;
+    private final S3UploadPipeline s3UploadPipeline;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ImageThumbnailer imageThumbnailer;
 
     @Value("${aws.s3.bucket.profile-photos}")
     private String profilePhotosBucket;
@@ -42,10 +47,7 @@ public class S3Service {
     @Value("${aws.s3.region}")
     private String region;
 
-    @Value("${aws.s3.presigned-url.expiration}")
-    private long presignedUrlExpiration;
-
-    public String uploadProfilePhoto(MultipartFile file, String userEmail) throws IOException {
+    public StoredFile uploadProfilePhoto(MultipartFile file, String userEmail) throws IOException {
         if (file == null || file.isEmpty()) {
             return null;
         }
@@ -53,55 +55,22 @@ public class S3Service {
         String fileExtension = getFileExtension(file.getOriginalFilename());
         String key = userEmail + fileExtension;
 
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType(file.getContentType());
-        metadata.setContentLength(file.getSize());
-
-        PutObjectRequest putObjectRequest = new PutObjectRequest(
-                profilePhotosBucket,
-                key,
-                file.getInputStream(),
-                metadata
-        );
-
-        s3Client.putObject(putObjectRequest);
-
-        return generatePresignedUrl(key, profilePhotosBucket);
+        return upload(profilePhotosBucket, key, file, file.getContentType());
     }
 
-    public String updateProfilePhoto(MultipartFile file, String userEmail) throws IOException {
-        // First delete the existing photo if it exists
-        deleteProfilePhoto(userEmail);
-        
-        // Then upload the new photo
-        return uploadProfilePhoto(file, userEmail);
+    public void deleteProfilePhoto(String key) {
+        deletePhoto(profilePhotosBucket, key);
     }
 
-    public void deleteProfilePhoto(String userEmail) {
-        // Try common image extensions
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif"};
-        for (String extension : extensions) {
-            String key = userEmail + extension;
-            if (s3Client.doesObjectExist(profilePhotosBucket, key)) {
-                s3Client.deleteObject(profilePhotosBucket, key);
-                break; // Exit after deleting the first matching file
-            }
-        }
+    public String getProfilePhotoUrl(String key) {
+        return key == null ? null : generatePresignedUrl(key, profilePhotosBucket);
     }
 
-    public String getProfilePhotoUrl(String userEmail) {
-        // Try common image extensions
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif"};
-        for (String extension : extensions) {
-            String key = userEmail + extension;
-            if (s3Client.doesObjectExist(profilePhotosBucket, key)) {
-                return generatePresignedUrl(key, profilePhotosBucket);
-            }
-        }
-        return null;
+    public Map<Integer, String> getProfilePhotoThumbnailUrls(String key, String thumbnailSizes) {
+        return thumbnailUrls(profilePhotosBucket, key, thumbnailSizes);
     }
 
-    public String uploadVehiclePhoto(MultipartFile file, UUID vehicleId) throws IOException {
+    public StoredFile uploadVehiclePhoto(MultipartFile file, UUID vehicleId) throws IOException {
         if (file == null || file.isEmpty()) {
             return null;
         }
@@ -109,55 +78,22 @@ public class S3Service {
         String fileExtension = getFileExtension(file.getOriginalFilename());
         String key = vehicleId.toString() + fileExtension;
 
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType(file.getContentType());
-        metadata.setContentLength(file.getSize());
-
-        PutObjectRequest putObjectRequest = new PutObjectRequest(
-                vehiclePhotosBucket,
-                key,
-                file.getInputStream(),
-                metadata
-        );
-
-        s3Client.putObject(putObjectRequest);
-
-        return generatePresignedUrl(key, vehiclePhotosBucket);
+        return upload(vehiclePhotosBucket, key, file, file.getContentType());
     }
 
-    public String updateVehiclePhoto(MultipartFile file, UUID vehicleId) throws IOException {
-        // First delete the existing photo if it exists
-        deleteVehiclePhoto(vehicleId);
-        
-        // Then upload the new photo
-        return uploadVehiclePhoto(file, vehicleId);
+    public void deleteVehiclePhoto(String key) {
+        deletePhoto(vehiclePhotosBucket, key);
     }
 
-    public void deleteVehiclePhoto(UUID vehicleId) {
-        // Try common image extensions
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif"};
-        for (String extension : extensions) {
-            String key = vehicleId.toString() + extension;
-            if (s3Client.doesObjectExist(vehiclePhotosBucket, key)) {
-                s3Client.deleteObject(vehiclePhotosBucket, key);
-                break; // Exit after deleting the first matching file
-            }
-        }
+    public String getVehiclePhotoUrl(String key) {
+        return key == null ? null : generatePresignedUrl(key, vehiclePhotosBucket);
     }
 
-    public String getVehiclePhotoUrl(UUID vehicleId) {
-        // Try common image extensions
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif"};
-        for (String extension : extensions) {
-            String key = vehicleId.toString() + extension;
-            if (s3Client.doesObjectExist(vehiclePhotosBucket, key)) {
-                return generatePresignedUrl(key, vehiclePhotosBucket);
-            }
-        }
-        return null;
+    public Map<Integer, String> getVehiclePhotoThumbnailUrls(String key, String thumbnailSizes) {
+        return thumbnailUrls(vehiclePhotosBucket, key, thumbnailSizes);
     }
 
-    public String uploadGaragePhoto(MultipartFile file, UUID garageId) throws IOException {
+    public StoredFile uploadGaragePhoto(MultipartFile file, UUID garageId) throws IOException {
         if (file == null || file.isEmpty()) {
             return null;
         }
@@ -165,55 +101,22 @@ public class S3Service {
         String fileExtension = getFileExtension(file.getOriginalFilename());
         String key = garageId.toString() + fileExtension;
 
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType(file.getContentType());
-        metadata.setContentLength(file.getSize());
-
-        PutObjectRequest putObjectRequest = new PutObjectRequest(
-                garagePhotosBucket,
-                key,
-                file.getInputStream(),
-                metadata
-        );
-
-        s3Client.putObject(putObjectRequest);
-
-        return generatePresignedUrl(key, garagePhotosBucket);
+        return upload(garagePhotosBucket, key, file, file.getContentType());
     }
 
-    public String updateGaragePhoto(MultipartFile file, UUID garageId) throws IOException {
-        // First delete the existing photo if it exists
-        deleteGaragePhoto(garageId);
-        
-        // Then upload the new photo
-        return uploadGaragePhoto(file, garageId);
+    public void deleteGaragePhoto(String key) {
+        deletePhoto(garagePhotosBucket, key);
     }
 
-    public void deleteGaragePhoto(UUID garageId) {
-        // Try common image extensions
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif"};
-        for (String extension : extensions) {
-            String key = garageId.toString() + extension;
-            if (s3Client.doesObjectExist(garagePhotosBucket, key)) {
-                s3Client.deleteObject(garagePhotosBucket, key);
-                break; // Exit after deleting the first matching file
-            }
-        }
+    public String getGaragePhotoUrl(String key) {
+        return key == null ? null : generatePresignedUrl(key, garagePhotosBucket);
     }
 
-    public String getGaragePhotoUrl(UUID garageId) {
-        // Try common image extensions
-        String[] extensions = {".jpg", ".jpeg", ".png", ".gif"};
-        for (String extension : extensions) {
-            String key = garageId.toString() + extension;
-            if (s3Client.doesObjectExist(garagePhotosBucket, key)) {
-                return generatePresignedUrl(key, garagePhotosBucket);
-            }
-        }
-        return null;
+    public Map<Integer, String> getGaragePhotoThumbnailUrls(String key, String thumbnailSizes) {
+        return thumbnailUrls(garagePhotosBucket, key, thumbnailSizes);
     }
 
-    public String uploadGarageDocument(MultipartFile file, UUID garageId) throws IOException {
+    public StoredFile uploadGarageDocument(MultipartFile file, UUID garageId) throws IOException {
         if (file == null || file.isEmpty()) {
             return null;
         }
@@ -226,53 +129,146 @@ public class S3Service {
 
         String key = garageId + "/document.pdf";
 
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType("application/pdf");
-        metadata.setContentLength(file.getSize());
+        return upload(garageDocumentsBucket, key, file, "application/pdf");
+    }
+
+    public void deleteGarageDocument(String key) {
+        if (key != null) {
+            s3Client.deleteObject(garageDocumentsBucket, key);
+            presignedUrlCache.invalidate(garageDocumentsBucket, key);
+        }
+    }
+
+    public String getGarageDocumentUrl(String key) {
+        return key == null ? null : generatePresignedUrl(key, garageDocumentsBucket);
+    }
+
+    /**
+     * Finds where a photo uploaded before object keys were stored ended up. Only meant
+     * for the one-time {@link StoredObjectKeyBackfill}; returns null if it is gone.
+     */
+    public StoredFile findLegacyProfilePhoto(String photoUrl, String userEmail) {
+        return findLegacyObject(profilePhotosBucket, photoUrl, legacyPhotoKeys(userEmail));
+    }
 
-        PutObjectRequest putObjectRequest = new PutObjectRequest(
-                garageDocumentsBucket,
-                key,
-                file.getInputStream(),
-                metadata
-        );
+    public StoredFile findLegacyVehiclePhoto(String photoUrl, UUID vehicleId) {
+        return findLegacyObject(vehiclePhotosBucket, photoUrl, legacyPhotoKeys(vehicleId.toString()));
+    }
 
-        s3Client.putObject(putObjectRequest);
+    public StoredFile findLegacyGaragePhoto(String photoUrl, UUID garageId) {
+        return findLegacyObject(garagePhotosBucket, photoUrl, legacyPhotoKeys(garageId.toString()));
+    }
 
-        return generatePresignedUrl(key, garageDocumentsBucket);
+    public StoredFile findLegacyGarageDocument(String documentUrl, UUID garageId) {
+        return findLegacyObject(garageDocumentsBucket, documentUrl, List.of(garageId + "/document.pdf"));
     }
 
-    public void deleteGarageDocument(UUID garageId) {
-        String key = garageId + "/document.pdf";
-        if (s3Client.doesObjectExist(garageDocumentsBucket, key)) {
-            s3Client.deleteObject(garageDocumentsBucket, key);
+    // For files known only by their FileUpload, e.g. an upload whose owner was deleted meanwhile
+    public void deleteUploadedFile(String bucket, String key) {
+        deletePhoto(bucket, key);
+    }
+
+    private void deletePhoto(String bucket, String key) {
+        if (key == null) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        for (int size : imageThumbnailer.getSizes()) {
+            keys.add(imageThumbnailer.thumbnailKey(key, size));
         }
+        // Missing thumbnails (e.g. not an image) are fine, deleting them is a no-op
+        s3Client.deleteObjects(new DeleteObjectsRequest(bucket).withKeys(keys.toArray(String[]::new)).withQuiet(true));
+        keys.forEach(deleted -> presignedUrlCache.invalidate(bucket, deleted));
     }
 
-    public String getGarageDocumentUrl(UUID garageId) {
-        String key = garageId + "/document.pdf";
-        if (s3Client.doesObjectExist(garageDocumentsBucket, key)) {
-            return generatePresignedUrl(key, garageDocumentsBucket);
+    // Only the sizes that were stored; null when the photo has none
+    private Map<Integer, String> thumbnailUrls(String bucket, String key, String thumbnailSizes) {
+        List<Integer> sizes = ImageThumbnailer.parseSizes(thumbnailSizes);
+        if (key == null || sizes.isEmpty()) {
+            return null;
+        }
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int size : sizes) {
+            urls.put(size, generatePresignedUrl(imageThumbnailer.thumbnailKey(key, size), bucket));
+        }
+        return urls;
+    }
+
+    /**
+     * Renders the thumbnails of a photo that is already stored and returns the sizes that
+     * were stored, formatted as on the owning row. Only meant for {@link PhotoThumbnailBackfill}.
+     */
+    public String createProfilePhotoThumbnails(String key, String contentType) throws IOException {
+        return createThumbnails(profilePhotosBucket, key, contentType);
+    }
+
+    public String createVehiclePhotoThumbnails(String key, String contentType) throws IOException {
+        return createThumbnails(vehiclePhotosBucket, key, contentType);
+    }
+
+    public String createGaragePhotoThumbnails(String key, String contentType) throws IOException {
+        return createThumbnails(garagePhotosBucket, key, contentType);
+    }
+
+    private String createThumbnails(String bucket, String key, String contentType) throws IOException {
+        if (!imageThumbnailer.supports(contentType)) {
+            return ImageThumbnailer.formatSizes(List.of());
+        }
+        return ImageThumbnailer.formatSizes(imageThumbnailer.generateFromStored(bucket, key));
+    }
+
+    private StoredFile upload(String bucket, String key, MultipartFile file, String contentType) throws IOException {
+        FileUpload upload = s3UploadPipeline.submit(bucket, key, file, contentType, imageThumbnailer.supports(contentType));
+        return new StoredFile(key, contentType, upload.getUploadId());
+    }
+
+    // The key in the stored presigned URL is tried first, then the names uploads used to get
+    private StoredFile findLegacyObject(String bucket, String url, List<String> candidateKeys) {
+        List<String> keys = new ArrayList<>();
+        String urlKey = keyFromUrl(bucket, url);
+        if (urlKey != null) {
+            keys.add(urlKey);
+        }
+        keys.addAll(candidateKeys);
+        for (String key : keys) {
+            try {
+                ObjectMetadata metadata = s3Client.getObjectMetadata(bucket, key);
+                return new StoredFile(key, metadata.getContentType(), null);
+            } catch (AmazonS3Exception e) {
+                if (e.getStatusCode() != 404) {
+                    throw e;
+                }
+            }
         }
         return null;
     }
 
-    public String updateGarageDocument(MultipartFile file, UUID garageId) throws IOException {
-        deleteGarageDocument(garageId);
-        return uploadGarageDocument(file, garageId);
+    private String keyFromUrl(String bucket, String url) {
+        try {
+            URI uri = URI.create(url);
+            String path = uri.getPath();
+            if (path == null || path.length() <= 1) {
+                return null;
+            }
+            path = path.substring(1);
+            // Path-style URLs start with the bucket, virtual-hosted ones have it in the host
+            boolean virtualHosted = uri.getHost() != null && uri.getHost().startsWith(bucket + ".");
+            if (!virtualHosted && path.startsWith(bucket + "/")) {
+                path = path.substring(bucket.length() + 1);
+            }
+            return path;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
-    private String generatePresignedUrl(String key, String bucket) {
-        Date expiration = new Date();
-        long expTimeMillis = expiration.getTime();
-        expTimeMillis += presignedUrlExpiration;
-        expiration.setTime(expTimeMillis);
 
-        GeneratePresignedUrlRequest generatePresignedUrlRequest = new GeneratePresignedUrlRequest(bucket, key)
-                .withMethod(com.amazonaws.HttpMethod.GET)
-                .withExpiration(expiration);
+    private List<String> legacyPhotoKeys(String baseName) {
+        return Stream.of(".jpg", ".jpeg", ".png", ".gif").map(extension -> baseName + extension).toList();
+    }
 
-        URL url = s3Client.generatePresignedUrl(generatePresignedUrlRequest);
-        return url.toString();
+    private String generatePresignedUrl(String key, String bucket) {
+        return presignedUrlCache.get(bucket, key);
     }
 
     private String getFileExtension(String filename) {
@@ -280,65 +276,4 @@ public class S3Service {
         int lastDotIndex = filename.lastIndexOf(".");
         return lastDotIndex == -1 ? "" : filename.substring(lastDotIndex);
     }
-    
-    /**
-     * Refreshes all pre-signed URLs for photos in all S3 buckets.
-     * This method should be called periodically to ensure URLs don't expire.
-     * 
-     * @return A list of all the refreshed pre-signed URLs
-     */
-    public List<String> refreshAllPresignedUrls() {
-        List<String> refreshedUrls = new ArrayList<>();
-        
-        // Refresh profile photos
-        refreshedUrls.addAll(refreshBucketUrls(profilePhotosBucket));
-        
-        // Refresh vehicle photos
-        refreshedUrls.addAll(refreshBucketUrls(vehiclePhotosBucket));
-        
-        // Refresh garage photos
-        refreshedUrls.addAll(refreshBucketUrls(garagePhotosBucket));
-        
-        return refreshedUrls;
-    }
-    
-    /**
-     * Refreshes pre-signed URLs for all objects in the specified bucket.
-     * 
-     * @param bucketName The name of the bucket to refresh URLs for
-     * @return A list of refreshed pre-signed URLs
-     */
-    private List<String> refreshBucketUrls(String bucketName) {
-        List<String> refreshedUrls = new ArrayList<>();
-        
-        try {
-            ListObjectsV2Request req = new ListObjectsV2Request().withBucketName(bucketName);
-            ListObjectsV2Result result;
-            
-            do {
-                result = s3Client.listObjectsV2(req);
-                
-                for (S3ObjectSummary objectSummary : result.getObjectSummaries()) {
-                    String key = objectSummary.getKey();
-                    // Only process image files
-                    if (key.matches(".*\\.(jpg|jpeg|png|gif)$")) {
-                        String url = generatePresignedUrl(key, bucketName);
-                        refreshedUrls.add(url);
-                    }
-                }
-                
-                // If there are more than 1000 objects, continue with the next batch
-                String token = result.getNextContinuationToken();
-                req.setContinuationToken(token);
-                
-            } while (result.isTruncated());
-            
-        } catch (Exception e) {
-            // Log the error but don't fail the entire operation
-            // In a production environment, you might want to use a proper logging framework
-            System.err.println("Error refreshing URLs for bucket " + bucketName + ": " + e.getMessage());
-        }
-        
-        return refreshedUrls;
-    }
-}
\ No newline at end of file
+}
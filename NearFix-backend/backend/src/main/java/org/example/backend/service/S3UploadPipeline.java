@@ -0,0 +1,186 @@
+package org.example.backend.service;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import jakarta.annotation.PreDestroy;
+import org.example.backend.entity.FileUpload;
+import org.example.backend.entity.FileUploadStatus;
+import org.example.backend.repository.FileUploadRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Sends uploaded files to S3 off the request. The file is spooled to local disk and
+ * recorded as a PENDING file upload in the caller's transaction; the transfer only
+ * starts once that transaction commits, so neither the request thread nor its JDBC
+ * connection waits on S3. Transfers go through the shared TransferManager, which
+ * uses parallel multipart uploads for large files on its own bounded thread pool.
+ * Uploads of the same object run in submission order. The upload ends COMPLETED or
+ * FAILED, recorded together with a {@link FileUploadFinishedEvent} so the rows that
+ * own the upload follow it; pending uploads whose spooled file survived a restart are sent again.
+ * Thumbnails, when requested, are rendered from the spooled file once it is stored,
+ * and the sizes that were stored are recorded on the upload.
+ */
+@Component
+public class S3UploadPipeline {
+    private static final int MAX_FAILURE_REASON_LENGTH = 1000;
+
+    private final TransferManager transferManager;
+    private final FileUploadRepository fileUploadRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageThumbnailer imageThumbnailer;
+    private final Path spoolDirectory;
+    private final long staleAfterMinutes;
+    // Only waits on TransferManager results, the transfers themselves run on its pool
+    private final ExecutorService completionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<String, CompletableFuture<Void>> transfersByObject = new ConcurrentHashMap<>();
+
+    public S3UploadPipeline(TransferManager transferManager,
+                            FileUploadRepository fileUploadRepository,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher,
+                            ImageThumbnailer imageThumbnailer,
+                            @Value("${uploads.spool-dir:${java.io.tmpdir}/nearfix-uploads}") String spoolDirectory,
+                            @Value("${uploads.stale-after-minutes:60}") long staleAfterMinutes) {
+        this.transferManager = transferManager;
+        this.fileUploadRepository = fileUploadRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.imageThumbnailer = imageThumbnailer;
+        this.spoolDirectory = Path.of(spoolDirectory);
+        this.staleAfterMinutes = staleAfterMinutes;
+    }
+
+    /**
+     * Queues the file for upload to {@code bucket}/{@code key}, with thumbnails of it if
+     * {@code thumbnails} is set. Nothing is sent when the surrounding transaction rolls back.
+     */
+    public FileUpload submit(String bucket, String key, MultipartFile file, String contentType, boolean thumbnails) throws IOException {
+        Files.createDirectories(spoolDirectory);
+        Path spoolFile = Files.createTempFile(spoolDirectory, "upload-", ".part");
+        try {
+            // Usually a rename of the servlet container's temp file, which is deleted after the request
+            file.transferTo(spoolFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
+        FileUpload upload = new FileUpload();
+        upload.setBucket(bucket);
+        upload.setObjectKey(key);
+        upload.setContentType(contentType);
+        upload.setSize(Files.size(spoolFile));
+        upload.setSpoolPath(spoolFile.toString());
+        upload.setThumbnails(thumbnails);
+        upload.setStatus(FileUploadStatus.PENDING);
+        upload.setCreatedAt(LocalDateTime.now());
+        FileUpload saved = fileUploadRepository.save(upload);
+
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                start(saved);
+            } else {
+                deleteSpoolFile(spoolFile);
+            }
+        });
+        return saved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        try {
+            LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+            for (FileUpload upload : fileUploadRepository.findByStatus(FileUploadStatus.PENDING)) {
+                if (Files.exists(Path.of(upload.getSpoolPath()))) {
+                    start(upload);
+                } else if (upload.getCreatedAt().isBefore(staleBefore)) {
+                    finish(upload, FileUploadStatus.FAILED, "Spooled file is gone");
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to resume pending uploads: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        completionExecutor.shutdown();
+    }
+
+    private void start(FileUpload upload) {
+        String object = upload.getBucket() + "/" + upload.getObjectKey();
+        CompletableFuture<Void> transfer = transfersByObject.compute(object, (k, previous) ->
+                (previous == null ? CompletableFuture.<Void>completedFuture(null) : previous)
+                        .thenRunAsync(() -> transfer(upload), completionExecutor));
+        transfer.whenComplete((result, e) -> transfersByObject.remove(object, transfer));
+    }
+
+    private void transfer(FileUpload upload) {
+        Path spoolFile = Path.of(upload.getSpoolPath());
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentType(upload.getContentType());
+            metadata.setContentLength(upload.getSize());
+            PutObjectRequest request = new PutObjectRequest(upload.getBucket(), upload.getObjectKey(), spoolFile.toFile())
+                    .withMetadata(metadata);
+            transferManager.upload(request).waitForCompletion();
+            // Completed only afterwards, so thumbnails cut short by a restart are made again
+            List<Integer> thumbnailSizes = Boolean.TRUE.equals(upload.getThumbnails())
+                    ? imageThumbnailer.generate(upload.getBucket(), upload.getObjectKey(), spoolFile).join()
+                    : List.of();
+            upload.setThumbnailSizes(ImageThumbnailer.formatSizes(thumbnailSizes));
+            finish(upload, FileUploadStatus.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Left PENDING with its spooled file, so it is sent again after the restart
+            return;
+        } catch (Exception e) {
+            System.err.println("Failed to upload " + upload.getBucket() + "/" + upload.getObjectKey() + ": " + e.getMessage());
+            finish(upload, FileUploadStatus.FAILED, e.getMessage());
+        }
+        deleteSpoolFile(spoolFile);
+    }
+
+    private void finish(FileUpload upload, FileUploadStatus status, String failureReason) {
+        upload.setStatus(status);
+        upload.setFailureReason(failureReason == null || failureReason.length() <= MAX_FAILURE_REASON_LENGTH
+                ? failureReason
+                : failureReason.substring(0, MAX_FAILURE_REASON_LENGTH));
+        upload.setCompletedAt(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(transaction -> {
+                fileUploadRepository.save(upload);
+                eventPublisher.publishEvent(new FileUploadFinishedEvent(upload));
+            });
+        } catch (Exception e) {
+            System.err.println("Failed to record status of upload " + upload.getUploadId() + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            System.err.println("Failed to delete spooled upload " + spoolFile + ": " + e.getMessage());
+        }
+    }
+}
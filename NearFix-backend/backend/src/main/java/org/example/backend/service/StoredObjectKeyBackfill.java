@@ -0,0 +1,101 @@
+package org.example.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.storage.StoredFile;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.User;
+import org.example.backend.entity.Vehicle;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.VehicleRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * One-time migration for photos and documents uploaded before their object keys
+ * were stored. Each row is resolved once through S3Service (the key in the saved
+ * presigned URL, then the old file names) and gets its key; the saved URL is
+ * cleared either way, since URLs are now signed from the key when served. After
+ * the first run this finds nothing to do.
+ */
+@Component
+@RequiredArgsConstructor
+public class StoredObjectKeyBackfill {
+    private static final int BATCH_SIZE = 100;
+
+    private final UserRepository userRepository;
+    private final VehicleRepository vehicleRepository;
+    private final GarageRepository garageRepository;
+    private final S3Service s3Service;
+    private final GarageResponseCache garageResponseCache;
+
+    // Before PhotoThumbnailBackfill, which renders thumbnails for the keys found here
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        backfill("profile photos", () -> userRepository.findByProfilePhotoUrlIsNotNullAndProfilePhotoKeyIsNull(Limit.of(BATCH_SIZE)),
+                this::backfillUser, userRepository::saveAll);
+        backfill("vehicle photos", () -> vehicleRepository.findByPhotoUrlIsNotNullAndPhotoKeyIsNull(Limit.of(BATCH_SIZE)),
+                this::backfillVehicle, vehicleRepository::saveAll);
+        backfill("garage files", () -> garageRepository.findWithoutStoredKeys(Limit.of(BATCH_SIZE)),
+                this::backfillGarage, garages -> {
+                    garageRepository.saveAll(garages);
+                    garages.forEach(garage -> garageResponseCache.evict(garage.getGarageId()));
+                });
+    }
+
+    // Every processed row loses its saved URL, so each batch query returns new rows
+    private <T> void backfill(String name, Supplier<List<T>> nextBatch, Consumer<T> resolve, Consumer<List<T>> save) {
+        int count = 0;
+        try {
+            List<T> batch;
+            while (!(batch = nextBatch.get()).isEmpty()) {
+                batch.forEach(resolve);
+                save.accept(batch);
+                count += batch.size();
+            }
+        } catch (Exception e) {
+            System.err.println("Stopped backfilling object keys of " + name + " after " + count + " rows: " + e.getMessage());
+            return;
+        }
+        if (count > 0) {
+            System.out.println("Backfilled object keys of " + count + " " + name);
+        }
+    }
+
+    private void backfillUser(User user) {
+        StoredFile photo = s3Service.findLegacyProfilePhoto(user.getProfilePhotoUrl(), user.getEmail());
+        user.setProfilePhotoUrl(null);
+        user.setProfilePhotoKey(photo == null ? null : photo.getKey());
+        user.setProfilePhotoContentType(photo == null ? null : photo.getContentType());
+    }
+
+    private void backfillVehicle(Vehicle vehicle) {
+        StoredFile photo = s3Service.findLegacyVehiclePhoto(vehicle.getPhotoUrl(), vehicle.getVehicleId());
+        vehicle.setPhotoUrl(null);
+        vehicle.setPhotoKey(photo == null ? null : photo.getKey());
+        vehicle.setPhotoContentType(photo == null ? null : photo.getContentType());
+    }
+
+    private void backfillGarage(Garage garage) {
+        if (garage.getPhotoUrl() != null && garage.getPhotoKey() == null) {
+            StoredFile photo = s3Service.findLegacyGaragePhoto(garage.getPhotoUrl(), garage.getGarageId());
+            garage.setPhotoUrl(null);
+            garage.setPhotoKey(photo == null ? null : photo.getKey());
+            garage.setPhotoContentType(photo == null ? null : photo.getContentType());
+        }
+        if (garage.getDocumentUrl() != null && garage.getDocumentKey() == null) {
+            StoredFile document = s3Service.findLegacyGarageDocument(garage.getDocumentUrl(), garage.getGarageId());
+            garage.setDocumentUrl(null);
+            garage.setDocumentKey(document == null ? null : document.getKey());
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.example.backend.dto.user.UserUpdateRequest;
 import org.example.backend.dto.user.ChangePasswordRequest;
 import org.example.backend.entity.Address;
 import org.example.backend.repository.AddressRepository;
+import org.example.backend.security.CustomUserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.example.backend.exception.user.UserException;
 
@@ -30,6 +31,8 @@ public class UserService {
     private final AppointmentRepository appointmentRepository;
     private final AddressRepository addressRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
+    private final S3Service s3Service;
 
     public UserResponse getUserByEmail(String email) {
         User user = userRepository.findByEmail(email)
@@ -85,6 +88,7 @@ public class UserService {
         addressRepository.save(address);
         user.setAddress(address);
         user = userRepository.save(user);
+        userDetailsService.evict(currentEmail);
         return mapToUserResponse(user);
     }
 
@@ -97,6 +101,7 @@ public class UserService {
         }
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userDetailsService.evict(userEmail);
     }
 
     private UserResponse mapToUserResponse(User user) {
@@ -106,7 +111,9 @@ public class UserService {
                 .lastName(user.getLastName())
                 .email(user.getEmail())
                 .phoneNumber(user.getPhoneNumber())
-                .profilePhotoUrl(user.getProfilePhotoUrl())
+                .profilePhotoUrl(s3Service.getProfilePhotoUrl(user.getProfilePhotoKey()))
+                .profilePhotoThumbnailUrls(s3Service.getProfilePhotoThumbnailUrls(user.getProfilePhotoKey(), user.getProfilePhotoThumbnailSizes()))
+                .profilePhotoUploadStatus(user.getProfilePhotoUploadStatus())
                 .role(user.getRole())
                 .address(AddressResponse.builder()
                         .addressId(user.getAddress().getAddressId())
@@ -130,7 +137,7 @@ public class UserService {
         dto.setStatus(appointment.getStatus().name());
         dto.setDetails(appointment.getDetails());
         dto.setSelectedDate(appointment.getSelectedDate());
-        dto.setGaragePhotoUrl(appointment.getGarage().getPhotoUrl());
+        dto.setGaragePhotoUrl(s3Service.getGaragePhotoUrl(appointment.getGarage().getPhotoKey()));
         dto.setGarageName(appointment.getGarage().getName());
         User employee = appointment.getEmployee();
         dto.setEmployeeName(employee.getFirstName() + " " + employee.getLastName());
@@ -1,8 +1,10 @@
 package org.example.backend.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.backend.dto.storage.StoredFile;
 import org.example.backend.dto.vehicle.VehicleRequest;
 import org.example.backend.dto.vehicle.VehicleResponse;
+import org.example.backend.entity.FileUploadStatus;
 import org.example.backend.entity.User;
 import org.example.backend.entity.Vehicle;
 import org.example.backend.exception.user.UserNotFoundException;
@@ -60,8 +62,9 @@ public class VehicleService {
 
         // Handle photo upload if provided
         if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-            String photoUrl = s3Service.uploadVehiclePhoto(request.getPhoto(), vehicle.getVehicleId());
-            vehicle.setPhotoUrl(photoUrl);
+            StoredFile photo = s3Service.uploadVehiclePhoto(request.getPhoto(), vehicle.getVehicleId());
+            vehicle.setPhotoUploadId(photo.getUploadId());
+            vehicle.setPhotoUploadStatus(FileUploadStatus.PENDING);
             vehicle = vehicleRepository.save(vehicle);
         }
 
@@ -109,8 +112,9 @@ public class VehicleService {
 
         // Handle photo upload if provided
         if (request.getPhoto() != null && !request.getPhoto().isEmpty()) {
-            String photoUrl = s3Service.updateVehiclePhoto(request.getPhoto(), vehicle.getVehicleId());
-            vehicle.setPhotoUrl(photoUrl);
+            StoredFile photo = s3Service.uploadVehiclePhoto(request.getPhoto(), vehicle.getVehicleId());
+            vehicle.setPhotoUploadId(photo.getUploadId());
+            vehicle.setPhotoUploadStatus(FileUploadStatus.PENDING);
         }
 
         vehicle = vehicleRepository.save(vehicle);
@@ -130,7 +134,7 @@ public class VehicleService {
         }
 
         // Delete the vehicle photo from S3 if it exists
-        s3Service.deleteVehiclePhoto(vehicleId);
+        s3Service.deleteVehiclePhoto(vehicle.getPhotoKey());
         
         vehicleRepository.delete(vehicle);
     }
@@ -147,13 +151,18 @@ public class VehicleService {
             throw new InvalidVehicleDataException("You don't have permission to delete this vehicle's photo");
         }
 
-        // Only proceed if the vehicle has a photo
-        if (vehicle.getPhotoUrl() != null) {
+        // Only proceed if the vehicle has a photo, or one on its way
+        if (vehicle.getPhotoKey() != null || vehicle.getPhotoUploadId() != null) {
             // Delete the photo from S3
-            s3Service.deleteVehiclePhoto(vehicleId);
+            s3Service.deleteVehiclePhoto(vehicle.getPhotoKey());
             
             // Update the vehicle's photo URL to null
             vehicle.setPhotoUrl(null);
+            vehicle.setPhotoKey(null);
+            vehicle.setPhotoContentType(null);
+            vehicle.setPhotoThumbnailSizes(null);
+            vehicle.setPhotoUploadId(null);
+            vehicle.setPhotoUploadStatus(null);
             vehicleRepository.save(vehicle);
         }
     }
@@ -197,7 +206,9 @@ public class VehicleService {
                 .fuelType(vehicle.getFuelType())
                 .mileage(vehicle.getMileage())
                 .userId(vehicle.getUser().getUserId())
-                .photoUrl(vehicle.getPhotoUrl())
+                .photoUrl(s3Service.getVehiclePhotoUrl(vehicle.getPhotoKey()))
+                .photoThumbnailUrls(s3Service.getVehiclePhotoThumbnailUrls(vehicle.getPhotoKey(), vehicle.getPhotoThumbnailSizes()))
+                .photoUploadStatus(vehicle.getPhotoUploadStatus())
                 .build();
     }
 
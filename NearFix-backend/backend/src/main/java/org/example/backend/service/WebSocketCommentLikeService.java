@@ -3,19 +3,57 @@ package org.example.backend.service;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.commentlike.CommentLikeUpdateMessage;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Same coalescing as WebSocketLikeService, for /topic/comment-likes/{commentId} and /topic/comment-likes
 @Service
 @RequiredArgsConstructor
 public class WebSocketCommentLikeService {
     private final SimpMessagingTemplate messagingTemplate;
     private final RedisCommentLikeService redisCommentLikeService;
 
+    private final Set<UUID> changedIds = ConcurrentHashMap.newKeySet();
+
+    // Only the id is recorded; the count sent is read when the window closes, so it is never older than Redis
     public void broadcastLikeUpdate(UUID commentId) {
-        Long likeCount = redisCommentLikeService.getLikeCount(commentId);
-        CommentLikeUpdateMessage message = new CommentLikeUpdateMessage(commentId, likeCount);
-        messagingTemplate.convertAndSend("/topic/comment-likes/" + commentId, message);
+        changedIds.add(commentId);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.broadcast-window-ms:250}")
+    public void flush() {
+        List<UUID> ids = new ArrayList<>();
+        for (UUID commentId : new ArrayList<>(changedIds)) {
+            if (changedIds.remove(commentId)) {
+                ids.add(commentId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<UUID, Long> counts;
+        try {
+            counts = redisCommentLikeService.getLikeCounts(ids);
+        } catch (Exception e) {
+            System.err.println("Failed to read like counts for broadcast, will retry: " + e.getMessage());
+            changedIds.addAll(ids);
+            return;
+        }
+        List<CommentLikeUpdateMessage> updates = new ArrayList<>();
+        counts.forEach((commentId, likeCount) -> {
+            CommentLikeUpdateMessage message = new CommentLikeUpdateMessage(commentId, likeCount);
+            messagingTemplate.convertAndSend("/topic/comment-likes/" + commentId, message);
+            updates.add(message);
+        });
+        if (!updates.isEmpty()) {
+            messagingTemplate.convertAndSend("/topic/comment-likes", updates);
+        }
     }
-} 
\ No newline at end of file
+}
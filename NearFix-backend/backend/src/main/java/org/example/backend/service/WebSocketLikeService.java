@@ -3,19 +3,62 @@ package org.example.backend.service;
 import lombok.RequiredArgsConstructor;
 import org.example.backend.dto.like.LikeUpdateMessage;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Coalesces like updates: the posts liked or unliked during a window are collected and,
+ * when it closes, their current counts are read from Redis in one MGET and sent to
+ * /topic/likes/{postId} and, for feed pages, as one list on /topic/likes.
+ * The outbound rate is bounded by the window, however fast likes come in.
+ */
 @Service
 @RequiredArgsConstructor
 public class WebSocketLikeService {
     private final SimpMessagingTemplate messagingTemplate;
     private final RedisLikeService redisLikeService;
 
+    private final Set<UUID> changedIds = ConcurrentHashMap.newKeySet();
+
+    // Only the id is recorded; the count sent is read when the window closes, so it is never older than Redis
     public void broadcastLikeUpdate(UUID postId) {
-        Long likeCount = redisLikeService.getLikeCount(postId);
-        LikeUpdateMessage message = new LikeUpdateMessage(postId, likeCount);
-        messagingTemplate.convertAndSend("/topic/likes/" + postId, message);
+        changedIds.add(postId);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.broadcast-window-ms:250}")
+    public void flush() {
+        List<UUID> ids = new ArrayList<>();
+        for (UUID postId : new ArrayList<>(changedIds)) {
+            if (changedIds.remove(postId)) {
+                ids.add(postId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<UUID, Long> counts;
+        try {
+            counts = redisLikeService.getLikeCounts(ids);
+        } catch (Exception e) {
+            System.err.println("Failed to read like counts for broadcast, will retry: " + e.getMessage());
+            changedIds.addAll(ids);
+            return;
+        }
+        List<LikeUpdateMessage> updates = new ArrayList<>();
+        counts.forEach((postId, likeCount) -> {
+            LikeUpdateMessage message = new LikeUpdateMessage(postId, likeCount);
+            messagingTemplate.convertAndSend("/topic/likes/" + postId, message);
+            updates.add(message);
+        });
+        if (!updates.isEmpty()) {
+            messagingTemplate.convertAndSend("/topic/likes", updates);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+-- Caches a value loaded from the database unless the entry was evicted while it loaded.
+-- KEYS[1] = cached value, KEYS[2] = version counter, bumped by every eviction
+-- ARGV[1] = version read before loading ('0' if there was none), ARGV[2] = value, ARGV[3] = TTL in seconds
+-- Returns 1 if the value was written, 0 if a newer version made it stale
+local current = redis.call('GET', KEYS[2]) or '0'
+if current ~= ARGV[1] then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+return 1
@@ -0,0 +1,43 @@
+-- Scores posts in the hot ranking: sign(likes) * log10(max(|likes|, 1)) + created / decay,
+-- so a post needs ten times the likes to rank with one posted `decay` seconds later.
+-- KEYS[1] = hot ranking sorted set, KEYS[2] = hash of post creation times (epoch seconds),
+-- KEYS[3] = hash of the sequence number of each post's last live update, KEYS[4] = sequence counter
+-- ARGV[1] = decay in seconds
+-- ARGV[2] = empty for live updates, which record a new sequence number on the posts they score;
+--           for a rebuild, the sequence number read before it loaded its counts: posts updated
+--           live since then already have a newer score and are skipped
+-- then triples of post id, like count, creation time
+-- An empty creation time keeps the stored one; posts without one (outside the window) are skipped.
+-- Returns the number of posts scored
+local decay = tonumber(ARGV[1])
+local rebuiltFrom = tonumber(ARGV[2])
+local sequence = nil
+if not rebuiltFrom then
+    sequence = redis.call('INCR', KEYS[4])
+end
+local scored = 0
+
+for i = 3, #ARGV, 3 do
+    local post = ARGV[i]
+    local likes = tonumber(ARGV[i + 1])
+    local created = ARGV[i + 2]
+    local updated = rebuiltFrom and tonumber(redis.call('HGET', KEYS[3], post) or '0') or 0
+    if not rebuiltFrom or updated <= rebuiltFrom then
+        if created ~= '' then
+            redis.call('HSET', KEYS[2], post, created)
+        else
+            created = redis.call('HGET', KEYS[2], post)
+        end
+        if created then
+            local sign = likes > 0 and 1 or (likes < 0 and -1 or 0)
+            local score = sign * math.log10(math.max(math.abs(likes), 1)) + tonumber(created) / decay
+            redis.call('ZADD', KEYS[1], score, post)
+            if sequence then
+                redis.call('HSET', KEYS[3], post, sequence)
+            end
+            scored = scored + 1
+        end
+    end
+end
+
+return scored
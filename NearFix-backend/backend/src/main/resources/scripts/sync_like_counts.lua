@@ -0,0 +1,16 @@
+-- Writes reconciled like counts, but only to counters that still hold the value they had
+-- before the stored counts were read; any other counter was toggled meanwhile.
+-- KEYS = like counters, ARGV[1] = TTL in seconds,
+-- ARGV[2i], ARGV[2i+1] = value read before (-1 if not cached) and new count of KEYS[i-1]
+-- Returns the positions (1-based) of the counters left untouched
+local skipped = {}
+for i, key in ipairs(KEYS) do
+    local seen = tonumber(ARGV[2 * i])
+    local current = tonumber(redis.call('GET', key)) or -1
+    if current == seen then
+        redis.call('SET', key, ARGV[2 * i + 1], 'EX', ARGV[1])
+    else
+        table.insert(skipped, i)
+    end
+end
+return skipped
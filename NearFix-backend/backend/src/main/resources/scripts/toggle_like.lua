@@ -0,0 +1,35 @@
+-- Likes or unlikes an item for a user in one atomic step.
+-- KEYS[1] = like counter of the item, KEYS[2] = set of items liked by the user
+-- ARGV[1] = item as stored in the set, ARGV[2] = 1 to like / 0 to unlike, ARGV[3] = TTL in seconds,
+-- ARGV[4] = count to start from when the counter is not cached, or -1 if the caller has not loaded it
+-- Returns {like count, liked (1/0), changed (1/0)}, or {-1, 0, 0} without any change when the
+-- counter is missing and no starting count was given
+local seed = tonumber(ARGV[4])
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    if seed < 0 then
+        return {-1, 0, 0}
+    end
+    redis.call('SET', KEYS[1], seed)
+end
+
+local liked = redis.call('SISMEMBER', KEYS[2], ARGV[1]) == 1
+local like = ARGV[2] == '1'
+local changed = 0
+
+if like and not liked then
+    redis.call('INCR', KEYS[1])
+    redis.call('SADD', KEYS[2], ARGV[1])
+    liked = true
+    changed = 1
+elseif not like and liked then
+    redis.call('DECR', KEYS[1])
+    redis.call('SREM', KEYS[2], ARGV[1])
+    liked = false
+    changed = 1
+end
+
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+redis.call('EXPIRE', KEYS[2], ARGV[3])
+
+local count = tonumber(redis.call('GET', KEYS[1])) or 0
+return {count, liked and 1 or 0, changed}
@@ -0,0 +1,90 @@
+package org.example.backend.benchmark;
+
+import org.example.backend.service.ImageThumbnailer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thumbnails rendered per second on one thread, i.e. per core, for photos of
+ * typical phone and camera resolutions. Covers decoding, the 1024/256/64 px
+ * downscales and JPEG encoding; the S3 writes are not included.
+ * Run with main() from the IDE or the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx512m", "-Djava.awt.headless=true"})
+@Threads(1)
+public class ImageThumbnailBenchmark {
+
+    @Param({"1600x1200", "4032x3024", "8000x6000"})
+    public String resolution;
+
+    private ImageThumbnailer thumbnailer;
+    private Path source;
+
+    @Setup
+    public void setUp() throws IOException {
+        thumbnailer = new ImageThumbnailer(null, new int[]{64, 256, 1024}, 0.8f, 1);
+        String[] dimensions = resolution.split("x");
+        int width = Integer.parseInt(dimensions[0]);
+        int height = Integer.parseInt(dimensions[1]);
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.DARK_GRAY));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.WHITE);
+        for (int x = 0; x < width; x += 40) {
+            graphics.drawLine(x, 0, width - x, height);
+        }
+        graphics.dispose();
+
+        source = Files.createTempFile("thumbnail-benchmark-", ".jpg");
+        ImageIO.write(image, "jpg", source.toFile());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        thumbnailer.shutdown();
+        Files.deleteIfExists(source);
+    }
+
+    @Benchmark
+    public Map<Integer, byte[]> render() throws IOException {
+        return thumbnailer.render(source);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageThumbnailBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
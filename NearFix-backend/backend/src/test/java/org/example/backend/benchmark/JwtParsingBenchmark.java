@@ -0,0 +1,98 @@
+package org.example.backend.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.example.backend.config.JwtConfig;
+import org.example.backend.entity.Role;
+import org.example.backend.entity.User;
+import org.example.backend.security.JwtTokenUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying the access token of one authenticated request: the old path
+ * built a new parser and verified the token five times (filter, validateToken and
+ * the email interceptor), the current one verifies it once and reuses the claims.
+ * Run with main() from the IDE or the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParsingBenchmark {
+    private static final String EMAIL = "benchmark@nearfix.test";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private Key key;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        config.setExpiration(3_600_000);
+        config.setRefreshExpiration(86_400_000);
+        jwtTokenUtil = new JwtTokenUtil(config);
+        jwtTokenUtil.init();
+        key = Keys.hmacShaKeyFor(config.getSecret().getBytes());
+
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setRole(Role.CUSTOMER);
+        token = jwtTokenUtil.generateToken(user);
+        userDetails = new org.springframework.security.core.userdetails.User(
+                EMAIL, "", List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+    }
+
+    @Benchmark
+    public boolean parsePerCheck() {
+        String username = parseWithNewParser().getSubject();
+        boolean valid = parseWithNewParser().getSubject().equals(userDetails.getUsername())
+                && !parseWithNewParser().getExpiration().before(new Date())
+                && !"REFRESH".equals(parseWithNewParser().get("type", String.class));
+        String interceptorEmail = parseWithNewParser().getSubject();
+        return valid && username.equals(interceptorEmail);
+    }
+
+    @Benchmark
+    public boolean parseOnce() {
+        Claims claims = jwtTokenUtil.parseClaims(token);
+        return jwtTokenUtil.validateToken(claims, userDetails) && EMAIL.equals(claims.getSubject());
+    }
+
+    private Claims parseWithNewParser() {
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtParsingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
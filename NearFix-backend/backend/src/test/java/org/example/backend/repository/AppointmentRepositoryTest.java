@@ -0,0 +1,200 @@
+package org.example.backend.repository;
+
+import org.example.backend.dto.appointment.AppointmentCreateRequest;
+import org.example.backend.entity.Address;
+import org.example.backend.entity.Appointment;
+import org.example.backend.entity.AppointmentStatus;
+import org.example.backend.entity.FuelType;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.GarageSchedule;
+import org.example.backend.entity.GarageStatus;
+import org.example.backend.entity.Role;
+import org.example.backend.entity.User;
+import org.example.backend.entity.Vehicle;
+import org.example.backend.exception.garage.AppointmentSlotUnavailableException;
+import org.example.backend.exception.garage.GarageExceptionHandler;
+import org.example.backend.repository.projection.EmployeeLoad;
+import org.example.backend.service.AppointmentAssignmentService;
+import org.example.backend.service.AppointmentLoadCounters;
+import org.example.backend.service.EmailService;
+import org.example.backend.service.GarageResponseCache;
+import org.example.backend.service.GarageResponseMapper;
+import org.example.backend.service.GarageSearchIndex;
+import org.example.backend.service.GarageService;
+import org.example.backend.service.S3Service;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The unique key on (user_id, selected_date, daily_slot) is the only guard against two
+ * instances booking the same employee slot; the striped lock in AppointmentAssignmentService
+ * only covers one JVM. Runs against an in-memory H2 database in PostgreSQL mode.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = AppointmentRepositoryTest.JpaConfig.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:appointments;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE,USER",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+class AppointmentRepositoryTest {
+    private static final LocalDate DATE = LocalDate.now().plusWeeks(1);
+
+    @Configuration
+    @EntityScan("org.example.backend.entity")
+    @EnableJpaRepositories("org.example.backend.repository")
+    static class JpaConfig {
+    }
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+    @Autowired
+    private GarageRepository garageRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AddressRepository addressRepository;
+    @Autowired
+    private GarageScheduleRepository scheduleRepository;
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    private Garage garage;
+    private Vehicle vehicle;
+    private User employee;
+
+    @BeforeEach
+    void setUp() {
+        User owner = userRepository.save(user("owner@nearfix.test", Role.GARAGE_OWNER));
+        User customer = userRepository.save(user("customer@nearfix.test", Role.CUSTOMER));
+        employee = userRepository.save(user("employee@nearfix.test", Role.MECHANIC_ENGINE));
+
+        garage = new Garage();
+        garage.setUser(owner);
+        garage.setAddress(address());
+        garage.setName("Fix Point");
+        garage.setStatus(GarageStatus.APPROVED);
+        garage = garageRepository.save(garage);
+
+        GarageSchedule schedule = new GarageSchedule();
+        schedule.setGarage(garage);
+        schedule.setDayOfWeek(DATE.getDayOfWeek().getValue() - 1);
+        schedule.setOpeningTime(LocalTime.of(8, 0));
+        schedule.setClosingTime(LocalTime.of(17, 0));
+        scheduleRepository.save(schedule);
+
+        vehicle = new Vehicle();
+        vehicle.setUser(customer);
+        vehicle.setVin("WVWZZZ1JZXW000001");
+        vehicle.setBrand("VW");
+        vehicle.setModel("Golf");
+        vehicle.setYear(2015);
+        vehicle.setCylinderCapacity(1600);
+        vehicle.setPower(105);
+        vehicle.setFuelType(FuelType.values()[0]);
+        vehicle.setMileage(120000);
+        vehicle = vehicleRepository.save(vehicle);
+    }
+
+    @Test
+    void rejectsASecondAppointmentInTheSameEmployeeSlot() {
+        appointmentRepository.saveAndFlush(appointment(1));
+
+        assertThrows(DataIntegrityViolationException.class, () -> appointmentRepository.saveAndFlush(appointment(1)));
+    }
+
+    @Test
+    void acceptsTheNextSlotOfTheSameDay() {
+        appointmentRepository.saveAndFlush(appointment(1));
+
+        assertDoesNotThrow(() -> appointmentRepository.saveAndFlush(appointment(2)));
+        assertEquals(2, appointmentRepository.count());
+    }
+
+    @Test
+    void bookingATakenSlotIsAnsweredWithConflict() {
+        // Booked by another instance, which this instance's counters and lock know nothing about
+        appointmentRepository.saveAndFlush(appointment(1));
+
+        AppointmentAssignmentService assignmentService = mock(AppointmentAssignmentService.class);
+        EmployeeLoad staleLoad = mock(EmployeeLoad.class);
+        when(staleLoad.getEmployeeId()).thenReturn(employee.getUserId());
+        when(staleLoad.getEmail()).thenReturn(employee.getEmail());
+        when(staleLoad.nextDailySlot()).thenReturn(1);
+        when(assignmentService.reserveEmployee(eq(garage.getGarageId()), eq(Role.MECHANIC_ENGINE), eq(DATE)))
+                .thenReturn(Optional.of(staleLoad));
+        GarageService garageService = new GarageService(garageRepository, userRepository, addressRepository,
+                scheduleRepository, mock(S3Service.class), mock(EmailService.class), appointmentRepository,
+                vehicleRepository, mock(GarageSearchIndex.class), mock(GarageResponseCache.class),
+                mock(GarageResponseMapper.class), assignmentService, mock(AppointmentLoadCounters.class));
+
+        AppointmentCreateRequest request = new AppointmentCreateRequest();
+        request.setGarageId(garage.getGarageId());
+        request.setVehicleId(vehicle.getVehicleId());
+        request.setSelectedDate(DATE);
+        request.setDetails("Engine noise");
+        request.setArea(Role.MECHANIC_ENGINE.name());
+
+        AppointmentSlotUnavailableException e = assertThrows(AppointmentSlotUnavailableException.class,
+                () -> garageService.createAppointment(request, "customer@nearfix.test"));
+        assertEquals(HttpStatus.CONFLICT,
+                new GarageExceptionHandler().handleAppointmentSlotUnavailableException(e).getStatusCode());
+    }
+
+    private Appointment appointment(int dailySlot) {
+        Appointment appointment = new Appointment();
+        appointment.setGarage(garage);
+        appointment.setVehicle(vehicle);
+        appointment.setEmployee(employee);
+        appointment.setStatus(AppointmentStatus.PENDING);
+        appointment.setDetails("Brake check");
+        appointment.setSelectedDate(DATE);
+        appointment.setDailySlot(dailySlot);
+        return appointment;
+    }
+
+    private User user(String email, Role role) {
+        User user = new User();
+        user.setAddress(address());
+        user.setFirstName("Ana");
+        user.setLastName("Pop");
+        user.setEmail(email);
+        user.setPassword("secret");
+        user.setPhoneNumber("0700000000");
+        user.setRole(role);
+        return user;
+    }
+
+    private Address address() {
+        Address address = new Address();
+        address.setCountry("Romania");
+        address.setCity("Cluj-Napoca");
+        address.setStreet("Memorandumului");
+        address.setNumber(12);
+        address.setZipCode(400114);
+        address.setLatitude(46.77);
+        address.setLongitude(23.59);
+        return addressRepository.save(address);
+    }
+}
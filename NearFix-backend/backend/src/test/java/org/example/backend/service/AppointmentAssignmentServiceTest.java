@@ -0,0 +1,185 @@
+package org.example.backend.service;
+
+import org.example.backend.entity.Role;
+import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.EmployeeContact;
+import org.example.backend.repository.projection.EmployeeLoad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AppointmentAssignmentServiceTest {
+    private static final UUID GARAGE_ID = UUID.randomUUID();
+    private static final Role ROLE = Role.MECHANIC_ENGINE;
+    // Before the current week, so never covered by the in-memory counters
+    private static final LocalDate PAST_DATE = LocalDate.now().minusWeeks(2);
+    private static final LocalDate FUTURE_DATE = LocalDate.now().plusWeeks(1);
+
+    private final List<UUID> employees = IntStream.range(0, 4).mapToObj(i -> UUID.randomUUID()).toList();
+    // Committed appointments of the day, as the ranking query would see them
+    private final Queue<Booking> committed = new ConcurrentLinkedQueue<>();
+
+    private AppointmentLoadCounters loadCounters;
+    private AppointmentAssignmentService assignmentService;
+
+    private record Booking(UUID employeeId, int dailySlot) {
+    }
+
+    private record Contact(UUID userId) implements EmployeeContact {
+        @Override
+        public UUID getUserId() {
+            return userId;
+        }
+
+        @Override
+        public String getEmail() {
+            return userId + "@nearfix.test";
+        }
+    }
+
+    private record Load(UUID employeeId, long dayCount, Integer lastDailySlot) implements EmployeeLoad {
+        @Override
+        public UUID getEmployeeId() {
+            return employeeId;
+        }
+
+        @Override
+        public String getEmail() {
+            return employeeId + "@nearfix.test";
+        }
+
+        @Override
+        public long getDayCount() {
+            return dayCount;
+        }
+
+        @Override
+        public long getWeekCount() {
+            return dayCount;
+        }
+
+        @Override
+        public Integer getLastDailySlot() {
+            return lastDailySlot;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepository = mock(AppointmentRepository.class);
+        when(appointmentRepository.rankEmployeesByLoad(eq(GARAGE_ID), eq(ROLE), eq(PAST_DATE), any(), any()))
+                .thenAnswer(invocation -> rankCommitted());
+        when(appointmentRepository.findDailyLoadsFrom(any())).thenReturn(List.of());
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findEmployeeContacts(GARAGE_ID, ROLE)).thenReturn(employees.stream()
+                .map(employeeId -> (EmployeeContact) new Contact(employeeId))
+                .toList());
+        loadCounters = new AppointmentLoadCounters(appointmentRepository);
+        loadCounters.warmUp();
+        assignmentService = new AppointmentAssignmentService(appointmentRepository, userRepository, loadCounters);
+    }
+
+    @Test
+    void concurrentBookingsAreSpreadEvenlyWithoutSharingSlots() throws Exception {
+        hammer(PAST_DATE);
+    }
+
+    @Test
+    void concurrentBookingsAreSpreadEvenlyFromInMemoryCounters() throws Exception {
+        hammer(FUTURE_DATE);
+        for (UUID employeeId : employees) {
+            assertEquals(50, loadCounters.dayCount(employeeId, FUTURE_DATE));
+        }
+    }
+
+    private void hammer(LocalDate date) throws Exception {
+        int threads = 8;
+        int bookingsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < bookingsPerThread; i++) {
+                    book(date);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        Map<UUID, List<Integer>> slotsByEmployee = committed.stream()
+                .collect(Collectors.groupingBy(Booking::employeeId,
+                        Collectors.mapping(Booking::dailySlot, Collectors.toList())));
+        int expectedPerEmployee = threads * bookingsPerThread / employees.size();
+        List<Integer> expectedSlots = IntStream.rangeClosed(1, expectedPerEmployee).boxed().toList();
+        assertEquals(employees.size(), slotsByEmployee.size());
+        for (UUID employeeId : employees) {
+            List<Integer> slots = slotsByEmployee.get(employeeId);
+            slots.sort(Comparator.naturalOrder());
+            assertEquals(expectedSlots, slots);
+        }
+    }
+
+    @Test
+    void reservationRequiresTransaction() {
+        assertThrows(IllegalStateException.class, () -> assignmentService.reserveEmployee(GARAGE_ID, ROLE, PAST_DATE));
+    }
+
+    // One booking transaction: reserve, give other threads a chance to race, then commit
+    private void book(LocalDate date) throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            EmployeeLoad load = assignmentService.reserveEmployee(GARAGE_ID, ROLE, date).orElseThrow();
+            loadCounters.booked(load.getEmployeeId(), date, load.nextDailySlot());
+            Thread.sleep(1);
+            committed.add(new Booking(load.getEmployeeId(), load.nextDailySlot()));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private List<EmployeeLoad> rankCommitted() {
+        List<Booking> snapshot = new ArrayList<>(committed);
+        return employees.stream()
+                .map(employeeId -> {
+                    List<Booking> own = snapshot.stream().filter(b -> b.employeeId().equals(employeeId)).toList();
+                    Integer lastSlot = own.stream().map(Booking::dailySlot).max(Comparator.naturalOrder()).orElse(null);
+                    return (EmployeeLoad) new Load(employeeId, own.size(), lastSlot);
+                })
+                .sorted(Comparator.comparingLong(EmployeeLoad::getDayCount))
+                .toList();
+    }
+}
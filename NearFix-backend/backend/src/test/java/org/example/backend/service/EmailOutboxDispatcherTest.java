@@ -0,0 +1,241 @@
+package org.example.backend.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.example.backend.entity.OutboxEmail;
+import org.example.backend.entity.OutboxEmailStatus;
+import org.example.backend.repository.OutboxEmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxDispatcherTest {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int DEAD_RETENTION_DAYS = 30;
+
+    // Local SMTP stand-in, emptied before every test
+    @RegisterExtension
+    static GreenMailExtension smtp = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    // In-memory stand-in for the Email_Outbox table
+    private final Map<UUID, OutboxEmail> outbox = new ConcurrentHashMap<>();
+
+    private OutboxEmailRepository outboxEmailRepository;
+    private TransactionTemplate transactionTemplate;
+    private EmailService emailService;
+    private final List<EmailOutboxDispatcher> dispatchers = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxEmailRepository = mock(OutboxEmailRepository.class);
+        when(outboxEmailRepository.save(any(OutboxEmail.class))).thenAnswer(invocation -> {
+            OutboxEmail email = invocation.getArgument(0);
+            if (email.getEmailId() == null) {
+                email.setEmailId(UUID.randomUUID());
+            }
+            outbox.put(email.getEmailId(), email);
+            return email;
+        });
+        when(outboxEmailRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<OutboxEmail> emails = invocation.getArgument(0);
+            emails.forEach(email -> outbox.put(email.getEmailId(), email));
+            return new ArrayList<>(emails);
+        });
+        when(outboxEmailRepository.findDueForUpdate(any(), any(), any())).thenAnswer(invocation -> {
+            OutboxEmailStatus status = invocation.getArgument(0);
+            LocalDateTime now = invocation.getArgument(1);
+            Limit limit = invocation.getArgument(2);
+            return outbox.values().stream()
+                    .filter(email -> email.getStatus() == status && !email.getNextAttemptAt().isAfter(now))
+                    .sorted(Comparator.comparing(OutboxEmail::getNextAttemptAt))
+                    .limit(limit.max())
+                    .toList();
+        });
+        doAnswer(invocation -> {
+            ((Collection<UUID>) invocation.getArgument(0)).forEach(outbox::remove);
+            return null;
+        }).when(outboxEmailRepository).deleteAllByIdInBatch(anyCollection());
+        when(outboxEmailRepository.deleteByStatusCreatedBefore(any(), any())).thenAnswer(invocation -> {
+            OutboxEmailStatus status = invocation.getArgument(0);
+            LocalDateTime before = invocation.getArgument(1);
+            List<UUID> purged = outbox.values().stream()
+                    .filter(email -> email.getStatus() == status && email.getCreatedAt().isBefore(before))
+                    .map(OutboxEmail::getEmailId)
+                    .toList();
+            purged.forEach(outbox::remove);
+            return purged.size();
+        });
+
+        transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        emailService = new EmailService(outboxEmailRepository);
+        ReflectionTestUtils.setField(emailService, "adminEmail", "admin@nearfix.test");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatchers.forEach(EmailOutboxDispatcher::shutdown);
+    }
+
+    @Test
+    void deliversQueuedEmailsAndRemovesThemFromTheOutbox() throws Exception {
+        for (int i = 0; i < 9; i++) {
+            emailService.sendCustomerAppointmentStatusUpdate("customer" + i + "@nearfix.test", LocalDate.of(2026, 5, 4), "CONFIRMED");
+        }
+        emailService.sendGarageApprovalRequest("Fix Point", "Ana Pop", "ana@nearfix.test");
+
+        // Batches of 4 over 2 workers: the round keeps claiming until a batch comes back short
+        dispatcher(smtpPort(), 4, 2).dispatch();
+
+        MimeMessage[] received = smtp.getReceivedMessages();
+        assertEquals(10, received.length);
+        assertTrue(outbox.isEmpty());
+        MimeMessage approval = List.of(received).stream()
+                .filter(message -> "admin@nearfix.test".equals(recipient(message)))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("New Garage Approval Request", approval.getSubject());
+        assertTrue(GreenMailUtil.getBody(approval).contains("Fix Point"));
+    }
+
+    @Test
+    void retriesWithBackoffAndDeadLettersAfterTheLastAttempt() throws IOException {
+        emailService.sendEmployeeAppointmentAssigned("employee@nearfix.test", LocalDate.of(2026, 5, 4), "Fix Point");
+        OutboxEmail email = outbox.values().iterator().next();
+        EmailOutboxDispatcher dispatcher = dispatcher(closedPort(), 10, 2);
+
+        dispatcher.dispatch();
+        assertRetryScheduled(email, 1, Duration.ofSeconds(30));
+
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        dispatcher.dispatch();
+        assertRetryScheduled(email, 2, Duration.ofSeconds(60));
+
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        dispatcher.dispatch();
+        assertEquals(OutboxEmailStatus.DEAD, email.getStatus());
+        assertEquals(MAX_ATTEMPTS, email.getAttempts());
+        assertNull(email.getBody());
+
+        dispatcher.dispatch();
+        assertEquals(MAX_ATTEMPTS, email.getAttempts());
+        assertEquals(0, smtp.getReceivedMessages().length);
+    }
+
+    @Test
+    void deliversEmailsQueuedWhileTheMailServerWasDown() throws IOException {
+        emailService.sendCustomerNoEmployeesAvailable("customer@nearfix.test", LocalDate.of(2026, 5, 4), "Fix Point");
+        OutboxEmail email = outbox.values().iterator().next();
+
+        dispatcher(closedPort(), 10, 2).dispatch();
+        assertRetryScheduled(email, 1, Duration.ofSeconds(30));
+        assertEquals(0, smtp.getReceivedMessages().length);
+
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        dispatcher(smtpPort(), 10, 2).dispatch();
+        assertEquals(1, smtp.getReceivedMessages().length);
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    void deadLettersEmailsThatCannotBeBuiltWithoutHoldingBackTheRest() {
+        emailService.sendGarageStatusUpdate("<broken", "Fix Point", true, null);
+        emailService.sendGarageStatusUpdate("owner@nearfix.test", "Fix Point", false, "Missing documents");
+
+        dispatcher(smtpPort(), 10, 1).dispatch();
+
+        assertEquals(1, smtp.getReceivedMessages().length);
+        assertEquals(1, outbox.size());
+        OutboxEmail broken = outbox.values().iterator().next();
+        assertEquals("<broken", broken.getRecipient());
+        assertEquals(OutboxEmailStatus.DEAD, broken.getStatus());
+        assertEquals(1, broken.getAttempts());
+        assertNull(broken.getBody());
+    }
+
+    @Test
+    void purgesDeadEmailsOlderThanTheRetention() throws IOException {
+        emailService.sendGarageStatusUpdate("<old", "Fix Point", true, null);
+        emailService.sendGarageStatusUpdate("<recent", "Fix Point", true, null);
+        emailService.sendGarageStatusUpdate("owner@nearfix.test", "Fix Point", true, null);
+        EmailOutboxDispatcher dispatcher = dispatcher(closedPort(), 10, 1);
+        dispatcher.dispatch();
+        outbox.values().stream()
+                .filter(email -> "<old".equals(email.getRecipient()))
+                .forEach(email -> email.setCreatedAt(LocalDateTime.now().minusDays(DEAD_RETENTION_DAYS + 1)));
+
+        dispatcher.purgeDead();
+
+        assertEquals(List.of("<recent", "owner@nearfix.test"),
+                outbox.values().stream().map(OutboxEmail::getRecipient).sorted().toList());
+    }
+
+    private void assertRetryScheduled(OutboxEmail email, int attempts, Duration backoff) {
+        assertEquals(OutboxEmailStatus.PENDING, email.getStatus());
+        assertEquals(attempts, email.getAttempts());
+        assertNotNull(email.getLastError());
+        Duration untilRetry = Duration.between(LocalDateTime.now(), email.getNextAttemptAt());
+        assertTrue(untilRetry.compareTo(backoff) <= 0 && untilRetry.compareTo(backoff.minusSeconds(5)) > 0,
+                "retry in " + untilRetry);
+    }
+
+    private EmailOutboxDispatcher dispatcher(int port, int batchSize, int workers) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(outboxEmailRepository, mailSender, transactionTemplate,
+                "noreply@nearfix.test", batchSize, workers, MAX_ATTEMPTS, 300, 30, 3600, DEAD_RETENTION_DAYS);
+        dispatchers.add(dispatcher);
+        return dispatcher;
+    }
+
+    private static int smtpPort() {
+        return smtp.getSmtp().getPort();
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String recipient(MimeMessage message) {
+        try {
+            return message.getAllRecipients()[0].toString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
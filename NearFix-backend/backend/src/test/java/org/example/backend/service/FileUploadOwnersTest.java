@@ -0,0 +1,131 @@
+package org.example.backend.service;
+
+import org.example.backend.entity.FileUpload;
+import org.example.backend.entity.FileUploadStatus;
+import org.example.backend.entity.Vehicle;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileUploadOwnersTest {
+    private static final String BUCKET = "vehicle-photos";
+
+    private UserRepository userRepository;
+    private VehicleRepository vehicleRepository;
+    private GarageRepository garageRepository;
+    private S3Service s3Service;
+    private FileUploadOwners owners;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        vehicleRepository = mock(VehicleRepository.class);
+        garageRepository = mock(GarageRepository.class);
+        s3Service = mock(S3Service.class);
+        when(userRepository.findByProfilePhotoUploadId(any())).thenReturn(Optional.empty());
+        when(vehicleRepository.findByPhotoUploadId(any())).thenReturn(Optional.empty());
+        when(garageRepository.findByPhotoUploadId(any())).thenReturn(Optional.empty());
+        when(garageRepository.findByDocumentUploadId(any())).thenReturn(Optional.empty());
+        owners = new FileUploadOwners(userRepository, vehicleRepository, garageRepository,
+                mock(GarageResponseCache.class), s3Service);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void completedUploadReplacesThePhotoAndDeletesTheOldOneAfterCommit() {
+        FileUpload upload = upload("car.png", FileUploadStatus.COMPLETED);
+        Vehicle vehicle = vehicle("car.jpg", upload.getUploadId());
+
+        owners.uploadFinished(new FileUploadFinishedEvent(upload));
+
+        assertEquals("car.png", vehicle.getPhotoKey());
+        assertEquals("image/png", vehicle.getPhotoContentType());
+        assertEquals("64,256", vehicle.getPhotoThumbnailSizes());
+        assertEquals(FileUploadStatus.COMPLETED, vehicle.getPhotoUploadStatus());
+        verify(s3Service, never()).deleteUploadedFile(anyString(), anyString());
+
+        commit();
+        verify(s3Service).deleteUploadedFile(BUCKET, "car.jpg");
+    }
+
+    @Test
+    void failedUploadKeepsThePreviousPhoto() {
+        FileUpload upload = upload("car.png", FileUploadStatus.FAILED);
+        Vehicle vehicle = vehicle("car.jpg", upload.getUploadId());
+
+        owners.uploadFinished(new FileUploadFinishedEvent(upload));
+        commit();
+
+        assertEquals("car.jpg", vehicle.getPhotoKey());
+        assertEquals("image/jpeg", vehicle.getPhotoContentType());
+        assertEquals("64", vehicle.getPhotoThumbnailSizes());
+        assertEquals(FileUploadStatus.FAILED, vehicle.getPhotoUploadStatus());
+        verify(s3Service, never()).deleteUploadedFile(anyString(), anyString());
+    }
+
+    @Test
+    void completedUploadWithoutOwnerIsDeletedUnlessItsKeyIsInUse() {
+        FileUpload orphan = upload("gone.png", FileUploadStatus.COMPLETED);
+        FileUpload superseded = upload("car.png", FileUploadStatus.COMPLETED);
+        when(vehicleRepository.existsByPhotoKey("car.png")).thenReturn(true);
+
+        owners.uploadFinished(new FileUploadFinishedEvent(orphan));
+        owners.uploadFinished(new FileUploadFinishedEvent(superseded));
+        commit();
+
+        verify(s3Service).deleteUploadedFile(BUCKET, "gone.png");
+        verify(s3Service, never()).deleteUploadedFile(BUCKET, "car.png");
+    }
+
+    private FileUpload upload(String key, FileUploadStatus status) {
+        FileUpload upload = new FileUpload();
+        upload.setUploadId(UUID.randomUUID());
+        upload.setBucket(BUCKET);
+        upload.setObjectKey(key);
+        upload.setContentType("image/png");
+        upload.setStatus(status);
+        upload.setThumbnailSizes(status == FileUploadStatus.COMPLETED ? "64,256" : null);
+        return upload;
+    }
+
+    private Vehicle vehicle(String photoKey, UUID uploadId) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setPhotoKey(photoKey);
+        vehicle.setPhotoContentType("image/jpeg");
+        vehicle.setPhotoThumbnailSizes("64");
+        vehicle.setPhotoUploadId(uploadId);
+        vehicle.setPhotoUploadStatus(FileUploadStatus.PENDING);
+        when(vehicleRepository.findByPhotoUploadId(uploadId)).thenReturn(Optional.of(vehicle));
+        return vehicle;
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.backend.service;
+
+import org.example.backend.dto.garage.GarageResponse;
+import org.example.backend.dto.garage.GarageSearchRequest;
+import org.example.backend.dto.pagination.CursorPage;
+import org.example.backend.entity.Address;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.GarageStatus;
+import org.example.backend.entity.Role;
+import org.example.backend.exception.garage.InvalidGarageDataException;
+import org.example.backend.repository.AddressRepository;
+import org.example.backend.repository.AppointmentRepository;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.GarageScheduleRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cursor pages of the garage search are always page 0, and a cursor only resumes the
+ * search that issued it: its distances are relative to that search's origin.
+ */
+class GarageSearchCursorTest {
+    private static final double LATITUDE = 46.77;
+    private static final double LONGITUDE = 23.59;
+
+    private final List<Garage> garages = new ArrayList<>();
+    private GarageService garageService;
+
+    @BeforeEach
+    void setUp() {
+        GarageRepository garageRepository = mock(GarageRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        GarageScheduleRepository scheduleRepository = mock(GarageScheduleRepository.class);
+        GarageResponseMapper garageResponseMapper = mock(GarageResponseMapper.class);
+        when(userRepository.findRolesByGarage(any())).thenReturn(List.of(Role.MECHANIC_ENGINE));
+        when(scheduleRepository.findOpeningSlotsByGarageId(any())).thenReturn(List.of());
+        when(garageRepository.findByGarageIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return garages.stream().filter(garage -> ids.contains(garage.getGarageId())).toList();
+        });
+        when(garageResponseMapper.toResponses(anyCollection())).thenAnswer(invocation -> {
+            Collection<Garage> found = invocation.getArgument(0);
+            return found.stream().map(garage -> GarageResponse.builder().garageId(garage.getGarageId()).build()).toList();
+        });
+
+        GarageSearchIndex index = new GarageSearchIndex(garageRepository, userRepository, scheduleRepository);
+        for (int i = 1; i <= 5; i++) {
+            Garage garage = garage(LATITUDE + i * 0.01);
+            garages.add(garage);
+            index.update(garage);
+            index.refreshEmployees(garage.getGarageId());
+        }
+        garageService = new GarageService(garageRepository, userRepository, mock(AddressRepository.class),
+                scheduleRepository, mock(S3Service.class), mock(EmailService.class), mock(AppointmentRepository.class),
+                mock(VehicleRepository.class), index, mock(GarageResponseCache.class), garageResponseMapper,
+                mock(AppointmentAssignmentService.class), mock(AppointmentLoadCounters.class));
+    }
+
+    @Test
+    void cursorPagesContinueTheSearchAsPageZero() {
+        CursorPage<GarageResponse> first = search(request(LATITUDE, null));
+        CursorPage<GarageResponse> second = search(request(LATITUDE, first.getNextCursor()));
+        CursorPage<GarageResponse> last = search(request(LATITUDE, second.getNextCursor()));
+
+        assertEquals(ids(0, 1), ids(first));
+        assertEquals(ids(2, 3), ids(second));
+        assertEquals(ids(4), ids(last));
+        assertEquals(0, second.getNumber());
+        assertTrue(second.isFirst());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void cursorCannotBeCombinedWithAPage() {
+        GarageSearchRequest request = request(LATITUDE, search(request(LATITUDE, null)).getNextCursor());
+        request.setPage(3);
+
+        assertThrows(InvalidGarageDataException.class, () -> garageService.searchGarages(request));
+    }
+
+    @Test
+    void cursorFromAnotherSearchIsRejected() {
+        String cursor = search(request(LATITUDE, null)).getNextCursor();
+
+        assertThrows(InvalidGarageDataException.class, () -> garageService.searchGarages(request(LATITUDE + 0.5, cursor)));
+        GarageSearchRequest otherArea = request(LATITUDE, cursor);
+        otherArea.setArea(Role.MECHANIC_PAINT.name());
+        assertThrows(InvalidGarageDataException.class, () -> garageService.searchGarages(otherArea));
+    }
+
+    private CursorPage<GarageResponse> search(GarageSearchRequest request) {
+        return (CursorPage<GarageResponse>) garageService.searchGarages(request);
+    }
+
+    private GarageSearchRequest request(double latitude, String cursor) {
+        GarageSearchRequest request = new GarageSearchRequest();
+        request.setLatitude(latitude);
+        request.setLongitude(LONGITUDE);
+        request.setArea(Role.MECHANIC_ENGINE.name());
+        request.setSize(2);
+        request.setCursor(cursor);
+        return request;
+    }
+
+    private List<UUID> ids(int... indexes) {
+        List<UUID> ids = new ArrayList<>();
+        for (int index : indexes) {
+            ids.add(garages.get(index).getGarageId());
+        }
+        return ids;
+    }
+
+    private static List<UUID> ids(CursorPage<GarageResponse> page) {
+        return page.getContent().stream().map(GarageResponse::getGarageId).toList();
+    }
+
+    private static Garage garage(double latitude) {
+        Address address = new Address();
+        address.setLatitude(latitude);
+        address.setLongitude(LONGITUDE);
+        Garage garage = new Garage();
+        garage.setGarageId(UUID.randomUUID());
+        garage.setStatus(GarageStatus.APPROVED);
+        garage.setAddress(address);
+        return garage;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.backend.service;
+
+import org.example.backend.entity.Address;
+import org.example.backend.entity.Garage;
+import org.example.backend.entity.GarageStatus;
+import org.example.backend.repository.GarageRepository;
+import org.example.backend.repository.GarageScheduleRepository;
+import org.example.backend.repository.UserRepository;
+import org.example.backend.repository.projection.GarageLocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The periodic rebuild reads its snapshot outside the index lock; incremental changes
+ * applied in between must survive it. Without a transaction afterCommit actions run
+ * at once, so changes made from the snapshot query land exactly in that window.
+ */
+class GarageSearchIndexTest {
+    private static final double LATITUDE = 46.77;
+    private static final double LONGITUDE = 23.59;
+
+    private GarageRepository garageRepository;
+    private GarageSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        garageRepository = mock(GarageRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        GarageScheduleRepository scheduleRepository = mock(GarageScheduleRepository.class);
+        when(userRepository.findGarageRoles()).thenReturn(List.of());
+        when(scheduleRepository.findOpeningSlotsByGarageStatus(any())).thenReturn(List.of());
+        when(scheduleRepository.findOpeningSlotsByGarageId(any())).thenReturn(List.of());
+        index = new GarageSearchIndex(garageRepository, userRepository, scheduleRepository);
+    }
+
+    @Test
+    void garageRemovedDuringARebuildStaysRemoved() {
+        UUID garageId = UUID.randomUUID();
+        List<GarageLocation> locations = List.of(location(garageId));
+        when(garageRepository.findLocationsByStatus(GarageStatus.APPROVED)).thenReturn(locations);
+        index.rebuild();
+
+        when(garageRepository.findLocationsByStatus(GarageStatus.APPROVED)).thenAnswer(invocation -> {
+            index.remove(garageId);
+            return locations;
+        });
+        index.rebuild();
+
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void garageApprovedDuringARebuildStaysIndexed() {
+        Garage garage = approvedGarage();
+        when(garageRepository.findLocationsByStatus(GarageStatus.APPROVED)).thenAnswer(invocation -> {
+            index.update(garage);
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertEquals(1, index.size());
+        assertEquals(garage.getGarageId(), index.findNearest(LATITUDE, LONGITUDE, 1, id -> true).get(0).garageId());
+    }
+
+    @Test
+    void laterRebuildsApplyTheSnapshotAgain() {
+        Garage garage = approvedGarage();
+        when(garageRepository.findLocationsByStatus(GarageStatus.APPROVED)).thenAnswer(invocation -> {
+            index.update(garage);
+            return List.of();
+        });
+        index.rebuild();
+
+        // Rejected by another instance: only the database knows
+        when(garageRepository.findLocationsByStatus(GarageStatus.APPROVED)).thenReturn(List.of());
+        index.rebuild();
+
+        assertEquals(0, index.size());
+    }
+
+    private Garage approvedGarage() {
+        Address address = new Address();
+        address.setLatitude(LATITUDE);
+        address.setLongitude(LONGITUDE);
+        Garage garage = new Garage();
+        garage.setGarageId(UUID.randomUUID());
+        garage.setStatus(GarageStatus.APPROVED);
+        garage.setAddress(address);
+        return garage;
+    }
+
+    private static GarageLocation location(UUID garageId) {
+        GarageLocation location = mock(GarageLocation.class);
+        when(location.getGarageId()).thenReturn(garageId);
+        when(location.getLatitude()).thenReturn(LATITUDE);
+        when(location.getLongitude()).thenReturn(LONGITUDE);
+        return location;
+    }
+}
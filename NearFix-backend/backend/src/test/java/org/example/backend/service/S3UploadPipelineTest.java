@@ -0,0 +1,304 @@
+package org.example.backend.service;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import org.example.backend.entity.FileUpload;
+import org.example.backend.entity.FileUploadStatus;
+import org.example.backend.repository.FileUploadRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class S3UploadPipelineTest {
+    private static final String BUCKET = "nearfix-test";
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path spoolDirectory;
+
+    // In-memory stand-in for the bucket, filled through the S3 calls TransferManager makes
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+    private final Map<UUID, FileUpload> uploads = new ConcurrentHashMap<>();
+    private final List<FileUploadFinishedEvent> finishedEvents = new CopyOnWriteArrayList<>();
+
+    private AmazonS3 s3Client;
+    private TransferManager transferManager;
+    private ImageThumbnailer thumbnailer;
+    private S3UploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(AmazonS3.class);
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenAnswer(invocation -> {
+            PutObjectRequest request = invocation.getArgument(0);
+            objects.put(request.getKey(), Files.readAllBytes(request.getFile().toPath()));
+            return new PutObjectResult();
+        });
+        when(s3Client.putObject(anyString(), anyString(), any(InputStream.class), any(ObjectMetadata.class))).thenAnswer(invocation -> {
+            try (InputStream in = invocation.getArgument(2)) {
+                objects.put(invocation.getArgument(1), in.readAllBytes());
+            }
+            return new PutObjectResult();
+        });
+        when(s3Client.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            String uploadId = UUID.randomUUID().toString();
+            multipartUploads.put(uploadId, new ConcurrentHashMap<>());
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId(uploadId);
+            return result;
+        });
+        when(s3Client.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            multipartUploads.get(request.getUploadId()).put(request.getPartNumber(), readPart(request));
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+        when(s3Client.listParts(any(ListPartsRequest.class))).thenAnswer(invocation -> {
+            ListPartsRequest request = invocation.getArgument(0);
+            PartListing listing = new PartListing();
+            listing.setParts(multipartUploads.get(request.getUploadId()).keySet().stream().map(partNumber -> {
+                PartSummary summary = new PartSummary();
+                summary.setPartNumber(partNumber);
+                summary.setETag("etag-" + partNumber);
+                return summary;
+            }).toList());
+            return listing;
+        });
+        when(s3Client.completeMultipartUpload(any(CompleteMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            CompleteMultipartUploadRequest request = invocation.getArgument(0);
+            Map<Integer, byte[]> parts = multipartUploads.remove(request.getUploadId());
+            objects.put(request.getKey(), concat(request.getPartETags().stream()
+                    .sorted(Comparator.comparingInt(PartETag::getPartNumber))
+                    .map(tag -> parts.get(tag.getPartNumber()))
+                    .toList()));
+            return new CompleteMultipartUploadResult();
+        });
+
+        transferManager = TransferManagerBuilder.standard()
+                .withS3Client(s3Client)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(2))
+                .withMultipartUploadThreshold((long) MB)
+                .withMinimumUploadPartSize((long) MB)
+                .build();
+
+        thumbnailer = new ImageThumbnailer(s3Client, new int[]{64, 256}, 0.8f, 1);
+
+        FileUploadRepository fileUploadRepository = mock(FileUploadRepository.class);
+        when(fileUploadRepository.save(any(FileUpload.class))).thenAnswer(invocation -> {
+            FileUpload upload = invocation.getArgument(0);
+            if (upload.getUploadId() == null) {
+                upload.setUploadId(UUID.randomUUID());
+            }
+            uploads.put(upload.getUploadId(), upload);
+            return upload;
+        });
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        ApplicationEventPublisher eventPublisher = event -> finishedEvents.add((FileUploadFinishedEvent) event);
+        pipeline = new S3UploadPipeline(transferManager, fileUploadRepository, transactionTemplate, eventPublisher,
+                thumbnailer, spoolDirectory.toString(), 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        pipeline.shutdown();
+        thumbnailer.shutdown();
+        transferManager.shutdownNow(false);
+    }
+
+    @Test
+    void largeFileIsSentInPartsAfterCommit() throws Exception {
+        byte[] content = randomBytes(3 * MB + 123);
+        TransactionSynchronizationManager.initSynchronization();
+
+        FileUpload upload = pipeline.submit(BUCKET, "garage.png", new MockMultipartFile("photo", "garage.png", "image/png", content), "image/png", false);
+
+        // Still inside the transaction: the row is pending and nothing went to S3
+        assertEquals(FileUploadStatus.PENDING, upload.getStatus());
+        assertTrue(objects.isEmpty());
+        assertTrue(multipartUploads.isEmpty());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        FileUpload finished = awaitFinished(upload.getUploadId());
+
+        assertEquals(FileUploadStatus.COMPLETED, finished.getStatus());
+        assertArrayEquals(content, objects.get("garage.png"));
+        verify(s3Client).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+        assertFalse(Files.exists(Path.of(finished.getSpoolPath())));
+    }
+
+    @Test
+    void smallFileIsSentInOneRequest() throws Exception {
+        byte[] content = randomBytes(64 * 1024);
+
+        FileUpload upload = pipeline.submit(BUCKET, "user.jpg", new MockMultipartFile("photo", "user.jpg", "image/jpeg", content), "image/jpeg", false);
+        FileUpload finished = awaitFinished(upload.getUploadId());
+
+        assertEquals(FileUploadStatus.COMPLETED, finished.getStatus());
+        assertArrayEquals(content, objects.get("user.jpg"));
+        verify(s3Client, never()).initiateMultipartUpload(any(InitiateMultipartUploadRequest.class));
+        assertEquals(List.of(new FileUploadFinishedEvent(finished)), finishedEvents);
+    }
+
+    @Test
+    void photoThumbnailsAreStoredBeforeTheUploadCompletes() throws Exception {
+        BufferedImage image = new BufferedImage(1600, 900, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        FileUpload upload = pipeline.submit(BUCKET, "garage.png", new MockMultipartFile("photo", "garage.png", "image/png", png.toByteArray()), "image/png", true);
+        FileUpload finished = awaitFinished(upload.getUploadId());
+
+        assertEquals(FileUploadStatus.COMPLETED, finished.getStatus());
+        BufferedImage large = ImageIO.read(new ByteArrayInputStream(objects.get(thumbnailer.thumbnailKey("garage.png", 256))));
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(objects.get(thumbnailer.thumbnailKey("garage.png", 64))));
+        assertEquals(256, large.getWidth());
+        assertEquals(144, large.getHeight());
+        assertEquals(64, small.getWidth());
+        assertEquals(36, small.getHeight());
+        assertEquals("64,256", finished.getThumbnailSizes());
+    }
+
+    @Test
+    void photoThatCannotBeRenderedCompletesWithoutThumbnails() throws Exception {
+        FileUpload upload = pipeline.submit(BUCKET, "broken.png", new MockMultipartFile("photo", "broken.png", "image/png", randomBytes(1024)), "image/png", true);
+        FileUpload finished = awaitFinished(upload.getUploadId());
+
+        assertEquals(FileUploadStatus.COMPLETED, finished.getStatus());
+        assertEquals("", finished.getThumbnailSizes());
+        assertFalse(objects.containsKey(thumbnailer.thumbnailKey("broken.png", 64)));
+    }
+
+    @Test
+    void rollbackDiscardsTheSpooledFile() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+
+        FileUpload upload = pipeline.submit(BUCKET, "vehicle.jpg", new MockMultipartFile("photo", "vehicle.jpg", "image/jpeg", randomBytes(1024)), "image/jpeg", false);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertFalse(Files.exists(Path.of(upload.getSpoolPath())));
+        assertTrue(objects.isEmpty());
+        assertTrue(finishedEvents.isEmpty());
+    }
+
+    @Test
+    void s3ErrorMarksTheUploadFailed() throws Exception {
+        when(s3Client.putObject(any(PutObjectRequest.class))).thenThrow(new AmazonServiceException("Access Denied"));
+
+        FileUpload upload = pipeline.submit(BUCKET, "document.pdf", new MockMultipartFile("document", "document.pdf", "application/pdf", randomBytes(1024)), "application/pdf", false);
+        FileUpload finished = awaitFinished(upload.getUploadId());
+
+        assertEquals(FileUploadStatus.FAILED, finished.getStatus());
+        assertTrue(finished.getFailureReason().contains("Access Denied"));
+        assertFalse(Files.exists(Path.of(finished.getSpoolPath())));
+        // The owning row hears about the failure instead of waiting on an object that never arrives
+        assertEquals(List.of(new FileUploadFinishedEvent(finished)), finishedEvents);
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private FileUpload awaitFinished(UUID uploadId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            FileUpload upload = uploads.get(uploadId);
+            if (upload.getStatus() != FileUploadStatus.PENDING && !Files.exists(Path.of(upload.getSpoolPath()))) {
+                return upload;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Upload " + uploadId + " did not finish");
+    }
+
+    private static byte[] readPart(UploadPartRequest request) throws IOException {
+        byte[] part = new byte[(int) request.getPartSize()];
+        if (request.getFile() != null) {
+            try (RandomAccessFile file = new RandomAccessFile(request.getFile(), "r")) {
+                file.seek(request.getFileOffset());
+                file.readFully(part);
+            }
+        } else {
+            try (InputStream in = request.getInputStream()) {
+                in.readNBytes(part, 0, part.length);
+            }
+        }
+        return part;
+    }
+
+    private static byte[] concat(List<byte[]> parts) {
+        byte[] result = new byte[parts.stream().mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
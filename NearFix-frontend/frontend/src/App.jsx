@@ -4,6 +4,7 @@ import { AuthProvider } from './context/AuthContext';
 import Home from './components/Home';
 import Login from './components/Login';
 import Register from './components/Register';
+import SetPassword from './components/SetPassword';
 import Feed from './pages/Feed';
 import PostDetail from './pages/PostDetail';
 import Profile from './pages/Profile';
@@ -43,7 +44,7 @@ const Layout = ({ children }) => {
   const [isSidebarCollapsed, setIsSidebarCollapsed] = useState(false);
   
   // Don't show sidebar on these pages
-  const hideSidebarPaths = ['/', '/login', '/register'];
+  const hideSidebarPaths = ['/', '/login', '/register', '/set-password'];
   const shouldShowSidebar = !hideSidebarPaths.includes(location.pathname) && user;
 
   // Handle mobile responsiveness
@@ -97,6 +98,7 @@ function App() {
             <Route path="/" element={<Home />} />
             <Route path="/login" element={<Login />} />
             <Route path="/register" element={<Register />} />
+            <Route path="/set-password" element={<SetPassword />} />
             <Route
               path="/feed"
               element={
@@ -0,0 +1,106 @@
+import React, { useState } from 'react';
+import { useNavigate, useSearchParams, Link } from 'react-router-dom';
+import axios from 'axios';
+import Spinner from './Spinner';
+import { API_CONFIG, ENDPOINTS, ROUTES } from '../config';
+
+// Opened from the link emailed to new employees; the token in the link can be used once
+const SetPassword = () => {
+  const [searchParams] = useSearchParams();
+  const token = searchParams.get('token') || '';
+  const [password, setPassword] = useState('');
+  const [confirmPassword, setConfirmPassword] = useState('');
+  const [error, setError] = useState('');
+  const [isLoading, setIsLoading] = useState(false);
+  const navigate = useNavigate();
+
+  const isFormValid = () => {
+    return password.trim() !== '' && password === confirmPassword;
+  };
+
+  const handleSubmit = async (e) => {
+    e.preventDefault();
+    if (!isFormValid()) {
+      setError('Passwords do not match');
+      return;
+    }
+
+    setError('');
+    setIsLoading(true);
+
+    try {
+      // Plain axios: a rejected link must not trigger the session refresh of the shared instance
+      await axios.post(`${API_CONFIG.BASE_URL}${ENDPOINTS.AUTH.PASSWORD_SETUP}`, { token, password });
+      navigate(ROUTES.LOGIN);
+    } catch (err) {
+      setError(err.response?.data?.message || 'Could not set the password. Please try again.');
+    } finally {
+      setIsLoading(false);
+    }
+  };
+
+  return (
+    <div className="min-h-screen w-screen bg-[#f6f3e3] flex items-center justify-center py-8 overflow-x-hidden">
+      <div className="w-full max-w-md px-4">
+        <div className="bg-white p-8 rounded-2xl shadow-lg transform transition-all duration-300 hover:shadow-xl">
+          <h2 className="text-4xl font-bold text-[#708eb3] mb-8 text-center">Choose Your Password</h2>
+          {!token && (
+            <div className="bg-red-50 border-l-4 border-red-400 text-red-700 px-4 py-3 rounded mb-6 animate-fade-in">
+              This link is incomplete. Please open the link from your email again.
+            </div>
+          )}
+          {error && (
+            <div className="bg-red-50 border-l-4 border-red-400 text-red-700 px-4 py-3 rounded mb-6 animate-fade-in">
+              {error}
+            </div>
+          )}
+          <form onSubmit={handleSubmit} className="space-y-6">
+            <div className="space-y-2">
+              <label className="block text-[#819bb9] font-medium" htmlFor="password">
+                Password <span className="text-red-400">*</span>
+              </label>
+              <input
+                id="password"
+                type="password"
+                value={password}
+                onChange={(e) => setPassword(e.target.value)}
+                className="w-full px-4 py-3 border border-[#a4b5c5] rounded-lg focus:outline-none focus:ring-2 focus:ring-[#92a8bf] focus:border-transparent transition-all duration-300"
+                required
+                disabled={isLoading || !token}
+              />
+            </div>
+            <div className="space-y-2">
+              <label className="block text-[#819bb9] font-medium" htmlFor="confirmPassword">
+                Confirm Password <span className="text-red-400">*</span>
+              </label>
+              <input
+                id="confirmPassword"
+                type="password"
+                value={confirmPassword}
+                onChange={(e) => setConfirmPassword(e.target.value)}
+                className="w-full px-4 py-3 border border-[#a4b5c5] rounded-lg focus:outline-none focus:ring-2 focus:ring-[#92a8bf] focus:border-transparent transition-all duration-300"
+                required
+                disabled={isLoading || !token}
+              />
+            </div>
+            <button
+              type="submit"
+              className="w-full bg-[#92a8bf] hover:bg-[#819bb9] text-white font-semibold py-3 px-4 rounded-lg transition-all duration-300 transform hover:scale-[1.02] disabled:opacity-50 disabled:cursor-not-allowed disabled:hover:scale-100 shadow-md hover:shadow-lg"
+              disabled={isLoading || !token || !isFormValid()}
+            >
+              {isLoading ? <Spinner /> : 'Set Password'}
+            </button>
+          </form>
+          <p className="mt-6 text-center text-[#a4b5c5]">
+            Already set it?{' '}
+            <Link to={ROUTES.LOGIN} className="text-[#92a8bf] hover:text-[#819bb9] font-medium transition-colors duration-300">
+              Login here
+            </Link>
+          </p>
+        </div>
+      </div>
+    </div>
+  );
+};
+
+export default SetPassword;
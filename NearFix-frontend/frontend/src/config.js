@@ -16,6 +16,7 @@ export const ENDPOINTS = {
     LOGIN: '/auth/login',
     REGISTER: '/auth/register',
     REFRESH: '/auth/refresh',
+    PASSWORD_SETUP: '/auth/password-setup',
     PROFILE_PHOTO_REFRESH: '/auth/profile/photo/refresh',
     PROFILE_PHOTO_UPLOAD: '/auth/profile/photo',
     PROFILE_PHOTO_DELETE: '/auth/profile/photo',
@@ -68,6 +69,7 @@ export const ROUTES = {
   HOME: '/',
   LOGIN: '/login',
   REGISTER: '/register',
+  SET_PASSWORD: '/set-password',
   FEED: '/feed',
   PROFILE: '/profile',
   VEHICLES: '/vehicles',